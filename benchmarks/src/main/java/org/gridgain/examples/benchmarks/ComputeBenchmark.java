@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.gridgain.examples.App3Compute;
+import org.gridgain.examples.compute.PopulationTotal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The affinity call of `App3Compute` that calculates the average population of a country locally on its primary
+ * node, either with a scan of the whole partition or with a local SQL query over the country code index. China is
+ * the country with the most cities and Vatican has a single city.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ComputeBenchmark extends WorldCluster {
+    /** Country code. */
+    @Param({"CHN", "RUS", "VAT"})
+    private String countryCode;
+
+    /** Whether the cities of the country are read with the index rather than with a partition scan. */
+    @Param({"false", "true"})
+    private boolean useIndex;
+
+    /** Partition of the country. */
+    private int partition;
+
+    /** {@inheritDoc} */
+    @Override protected void prepare() {
+        partition = client.affinity("Country").partition(countryCode);
+    }
+
+    /** */
+    @Benchmark
+    public PopulationTotal averagePopulation() {
+        App3Compute.AvgPopulationCalculationTask task =
+            new App3Compute.AvgPopulationCalculationTask(countryCode, partition).quiet();
+
+        if (useIndex)
+            task.useIndex();
+
+        return client.compute().affinityCall(Collections.singleton("Country"), partition, task);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.cache.event.CacheEntryEvent;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.gridgain.examples.App4ContinousQueries;
+import org.gridgain.examples.model.CityKey;
+import org.gridgain.examples.processors.IncrementFieldProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency between a population update and the delivery of the notification to the continuous query of
+ * `App4ContinousQueries`. Every invocation changes the population of Los Angeles and waits for the listener
+ * to receive the new value.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(1)
+public class ContinuousQueryBenchmark extends WorldCluster {
+    /** */
+    private static final CityKey LOS_ANGELES = new CityKey(3794, "USA");
+
+    /** City cache working with binary objects. */
+    private IgniteCache<CityKey, BinaryObject> cityCache;
+
+    /** Continuous query cursor. */
+    private QueryCursor<?> cursor;
+
+    /** Population the listener is waiting for. */
+    private volatile int expPopulation;
+
+    /** Completed by the listener once the expected population is received. */
+    private volatile CompletableFuture<Void> notified;
+
+    /** Current population of the city. */
+    private int population;
+
+    /** Sign of the next update, it changes every time so the population doesn't drift. */
+    private int sign = 1;
+
+    /** {@inheritDoc} */
+    @Override protected void prepare() {
+        cityCache = client.cache("City").withKeepBinary();
+
+        population = cityCache.get(LOS_ANGELES).field("population");
+
+        ContinuousQuery<BinaryObject, BinaryObject> qry = new ContinuousQuery<>();
+
+        qry.setRemoteFilterFactory(new App4ContinousQueries.PopulationChangesFilter());
+
+        qry.setLocalListener(events -> {
+            for (CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e : events) {
+                CompletableFuture<Void> fut = notified;
+
+                if (fut != null && e.getValue().<Integer>field("population") == expPopulation)
+                    fut.complete(null);
+            }
+        });
+
+        IgniteCache<BinaryObject, BinaryObject> binaryCache = client.cache("City").withKeepBinary();
+
+        cursor = binaryCache.query(qry);
+    }
+
+    /** {@inheritDoc} */
+    @Override protected void cleanup() {
+        if (cursor != null)
+            cursor.close();
+    }
+
+    /** */
+    @Benchmark
+    public void updateToNotification() throws Exception {
+        population += sign;
+
+        CompletableFuture<Void> fut = new CompletableFuture<>();
+
+        expPopulation = population;
+        notified = fut;
+
+        cityCache.invoke(LOS_ANGELES, new IncrementFieldProcessor<>("population", sign));
+
+        sign = -sign;
+
+        fut.get(10, TimeUnit.SECONDS);
+    }
+}
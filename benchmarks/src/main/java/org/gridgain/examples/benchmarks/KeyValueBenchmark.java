@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.gridgain.examples.App1KeyValue;
+import org.gridgain.examples.model.Country;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Key-value operations of `App1KeyValue`: get, put and the EntryProcessor-based update of a Country record.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class KeyValueBenchmark extends WorldCluster {
+    /** Country cache. */
+    private IgniteCache<String, Country> countryCache;
+
+    /** Country cache working with binary objects. */
+    private IgniteCache<String, BinaryObject> binaryCountryCache;
+
+    /** Record that is written back by the put benchmark. */
+    private Country usa;
+
+    /** {@inheritDoc} */
+    @Override protected void prepare() {
+        countryCache = client.cache("Country");
+
+        binaryCountryCache = countryCache.withKeepBinary();
+
+        usa = countryCache.get("USA");
+    }
+
+    /** */
+    @Benchmark
+    public Country get() {
+        return countryCache.get("USA");
+    }
+
+    /** */
+    @Benchmark
+    public void put() {
+        countryCache.put("USA", usa);
+    }
+
+    /** */
+    @Benchmark
+    public String invoke() {
+        return binaryCountryCache.invoke("GBR", new App1KeyValue.CountryEntryProcessor(), "headofstate",
+            "Boris Johnson");
+    }
+}
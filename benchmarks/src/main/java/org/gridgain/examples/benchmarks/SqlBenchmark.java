@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.gridgain.examples.App0DataGenerator;
+import org.gridgain.examples.loader.WorldDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The SQL queries of the README executed with the `SqlFieldsQuery` API of the client node and with the thin JDBC
+ * driver: the most populated countries, the co-located join of the cities and the countries with `IN (...)`, and the
+ * point select and update of the city with ID 4000.
+ *
+ * The README joins nine fixed countries, but the generated data gives the real country codes only to the largest
+ * countries, which hold most of the cities under a skewed distribution. The join therefore takes nine countries
+ * picked by rank from the loaded data instead: the countries are ordered by their number of cities and every
+ * {@link #JOIN_COUNTRIES}-th part of the list contributes one, so the joined cities are about the same share of all
+ * the cities whatever the size of the data.
+ *
+ * The primary key of City is (ID, CountryCode) and CountryCode is the affinity key. A condition on the ID alone
+ * doesn't tell the partition of the city, so such a query is sent to all the server nodes, while the query that has
+ * the country code as well goes to a single node. Both variants are measured.
+ *
+ * The benchmark runs on the original World database and on the data generated with `App0DataGenerator` in place of
+ * it. The plans of the queries are printed once the data is loaded. Every benchmark thread has its own JDBC
+ * connection, use `-t` to change the concurrency.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SqlBenchmark extends WorldCluster {
+    /** */
+    private static final String TOP_COUNTRIES = "SELECT name, MAX(population) as max_pop FROM country " +
+        "GROUP BY name, population ORDER BY max_pop DESC LIMIT 3";
+
+    /** Number of the countries of the join, the same as in the README. */
+    private static final int JOIN_COUNTRIES = 9;
+
+    /** Join of the cities and the countries, {@code %s} is replaced with the codes of the countries. */
+    private static final String JOIN_CITIES = "SELECT country.name, city.name, MAX(city.population) as max_pop " +
+        "FROM country JOIN city ON city.countrycode = country.code " +
+        "WHERE country.code IN (%s) " +
+        "GROUP BY country.name, city.name ORDER BY max_pop DESC LIMIT 3";
+
+    /** */
+    private static final String SELECT_BY_ID = "SELECT name, population FROM City WHERE id = ?";
+
+    /** */
+    private static final String SELECT_BY_KEY = "SELECT name, population FROM City WHERE id = ? AND countrycode = ?";
+
+    /** */
+    private static final String UPDATE_BY_ID = "UPDATE City SET population = ? WHERE id = ?";
+
+    /** */
+    private static final String UPDATE_BY_KEY = "UPDATE City SET population = ? WHERE id = ? AND countrycode = ?";
+
+    /** ID of the city the point queries read and update. */
+    private static final int CITY_ID = 4000;
+
+    /** API the queries are executed with. */
+    @Param({"SQL_FIELDS", "JDBC_THIN"})
+    private Api api;
+
+    /** Number of the generated cities, 0 for the original World database. */
+    @Param({"0", "100000", "1000000"})
+    private long cities;
+
+    /** City cache the queries are executed on with `SqlFieldsQuery`. */
+    private IgniteCache<?, ?> cityCache;
+
+    /** Country code of the city the point queries read and update. */
+    private String countryCode;
+
+    /** Join of the cities and the countries picked from the loaded data. */
+    private String joinCitiesSql;
+
+    /** {@inheritDoc} */
+    @Override protected void prepare() throws Exception {
+        if (cities > 0) {
+            App0DataGenerator.generate(client, new WorldDataGenerator(Long.getLong("generator.seed", 42),
+                Integer.getInteger("generator.countries", 240), cities, Integer.getInteger("generator.languages", 4),
+                Double.parseDouble(System.getProperty("generator.skew", "1.0"))), true);
+        }
+
+        cityCache = client.cache("City");
+
+        List<List<?>> city = cityCache.query(new SqlFieldsQuery("SELECT countrycode FROM City WHERE id = ?")
+            .setArgs(CITY_ID)).getAll();
+
+        if (city.isEmpty())
+            throw new IllegalStateException("City with ID " + CITY_ID + " doesn't exist, load the World database " +
+                "or generate at least " + CITY_ID + " cities [cities=" + cities + ']');
+
+        countryCode = (String)city.get(0).get(0);
+
+        joinCitiesSql = String.format(JOIN_CITIES, joinCountryCodes());
+
+        explain("topCountries", TOP_COUNTRIES);
+        explain("joinCities", joinCitiesSql);
+        explain("selectById", SELECT_BY_ID, CITY_ID);
+        explain("selectByIdAndCountryCode", SELECT_BY_KEY, CITY_ID, countryCode);
+        // Plans of the updates aren't available, an update reads the rows to change with the same condition.
+        explain("updateById", "SELECT _key, population FROM City WHERE id = ?", CITY_ID);
+        explain("updateByIdAndCountryCode", "SELECT _key, population FROM City WHERE id = ? AND countrycode = ?",
+            CITY_ID, countryCode);
+    }
+
+    /**
+     * Picks the countries of the join from the loaded data by their rank in the number of cities.
+     *
+     * @return Quoted country codes separated by commas.
+     */
+    private String joinCountryCodes() {
+        List<List<?>> countries = cityCache.query(new SqlFieldsQuery("SELECT countrycode, COUNT(*) AS cnt FROM City " +
+            "GROUP BY countrycode ORDER BY cnt DESC, countrycode")).getAll();
+
+        StringBuilder codes = new StringBuilder();
+
+        for (int i = 0; i < Math.min(JOIN_COUNTRIES, countries.size()); i++) {
+            if (i > 0)
+                codes.append(',');
+
+            codes.append('\'').append(countries.get(i * countries.size() / JOIN_COUNTRIES).get(0)).append('\'');
+        }
+
+        System.out.println("Countries of the join [cities=" + cities + ", codes=" + codes + ']');
+
+        return codes.toString();
+    }
+
+    /**
+     * Prints the plan of a query.
+     */
+    private void explain(String benchmark, String sql, Object... args) {
+        System.out.println("Plan [benchmark=" + benchmark + ", cities=" + cities + ']');
+
+        for (List<?> row : cityCache.query(new SqlFieldsQuery("EXPLAIN " + sql).setArgs(args)).getAll())
+            System.out.println("    " + String.valueOf(row.get(0)).replace("\n", "\n    "));
+    }
+
+    /** */
+    @Benchmark
+    public int topCountries(Session session) throws SQLException {
+        return query(session, TOP_COUNTRIES);
+    }
+
+    /** */
+    @Benchmark
+    public int joinCities(Session session) throws SQLException {
+        return query(session, joinCitiesSql);
+    }
+
+    /** */
+    @Benchmark
+    public int selectById(Session session) throws SQLException {
+        return query(session, SELECT_BY_ID, CITY_ID);
+    }
+
+    /** */
+    @Benchmark
+    public int selectByIdAndCountryCode(Session session) throws SQLException {
+        return query(session, SELECT_BY_KEY, CITY_ID, countryCode);
+    }
+
+    /** */
+    @Benchmark
+    public int updateById(Session session) throws SQLException {
+        return update(session, UPDATE_BY_ID, 5000, CITY_ID);
+    }
+
+    /** */
+    @Benchmark
+    public int updateByIdAndCountryCode(Session session) throws SQLException {
+        return update(session, UPDATE_BY_KEY, 5000, CITY_ID, countryCode);
+    }
+
+    /**
+     * Executes a query.
+     *
+     * @return Number of the rows read.
+     */
+    private int query(Session session, String sql, Object... args) throws SQLException {
+        if (api == Api.SQL_FIELDS)
+            return cityCache.query(new SqlFieldsQuery(sql).setArgs(args)).getAll().size();
+
+        int rows = 0;
+
+        try (ResultSet rs = session.statement(sql, args).executeQuery()) {
+            while (rs.next())
+                rows++;
+        }
+
+        return rows;
+    }
+
+    /**
+     * Executes an update.
+     *
+     * @return Number of the rows updated.
+     */
+    private int update(Session session, String sql, Object... args) throws SQLException {
+        if (api == Api.SQL_FIELDS)
+            return ((Number)cityCache.query(new SqlFieldsQuery(sql).setArgs(args)).getAll().get(0).get(0)).intValue();
+
+        return session.statement(sql, args).executeUpdate();
+    }
+
+    /**
+     * API the queries are executed with.
+     */
+    public enum Api {
+        /** `SqlFieldsQuery` of the client node. */
+        SQL_FIELDS,
+
+        /** Thin JDBC driver. */
+        JDBC_THIN
+    }
+
+    /**
+     * JDBC connection of a benchmark thread and its prepared statements.
+     */
+    @State(Scope.Thread)
+    public static class Session {
+        /** Connection, {@code null} unless the thin JDBC driver is benchmarked. */
+        private Connection conn;
+
+        /** Prepared statements by query. */
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        /**
+         * Opens the connection.
+         */
+        @Setup(Level.Trial)
+        public void open(SqlBenchmark benchmark) throws Exception {
+            if (benchmark.api == Api.JDBC_THIN) {
+                Class.forName("org.apache.ignite.IgniteJdbcThinDriver");
+
+                conn = DriverManager.getConnection(jdbcUrl());
+            }
+        }
+
+        /**
+         * @return Prepared statement of the query with the arguments set.
+         */
+        PreparedStatement statement(String sql, Object... args) throws SQLException {
+            PreparedStatement stmt = statements.get(sql);
+
+            if (stmt == null)
+                statements.put(sql, stmt = conn.prepareStatement(sql));
+
+            for (int i = 0; i < args.length; i++)
+                stmt.setObject(i + 1, args[i]);
+
+            return stmt;
+        }
+
+        /**
+         * Closes the connection.
+         */
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            if (conn != null)
+                conn.close();
+
+            conn = null;
+
+            statements.clear();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteTransactions;
+import org.apache.ignite.transactions.Transaction;
+import org.apache.ignite.transactions.TransactionConcurrency;
+import org.apache.ignite.transactions.TransactionIsolation;
+import org.gridgain.examples.model.City;
+import org.gridgain.examples.model.CityKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The two-key pessimistic transaction of `App2Transactions` that moves residents between New York and Los Angeles.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class TransactionBenchmark extends WorldCluster {
+    /** */
+    private static final CityKey NEW_YORK = new CityKey(3793, "USA");
+
+    /** */
+    private static final CityKey LOS_ANGELES = new CityKey(3794, "USA");
+
+    /** City cache. */
+    private IgniteCache<CityKey, City> cityCache;
+
+    /** Transactions facade. */
+    private IgniteTransactions txs;
+
+    /** {@inheritDoc} */
+    @Override protected void prepare() {
+        cityCache = client.cache("City");
+
+        txs = client.transactions();
+    }
+
+    /**
+     * Direction of the transfers of a benchmark thread, it changes every time so the populations don't drift.
+     */
+    @State(Scope.Thread)
+    public static class Direction {
+        /** */
+        int sign = 1;
+    }
+
+    /** */
+    @Benchmark
+    public void transfer(Direction dir) {
+        int migrated = dir.sign;
+
+        dir.sign = -dir.sign;
+
+        try (Transaction tx = txs.txStart(TransactionConcurrency.PESSIMISTIC, TransactionIsolation.REPEATABLE_READ)) {
+            City newYork = cityCache.get(NEW_YORK);
+            City losAngeles = cityCache.get(LOS_ANGELES);
+
+            newYork.setPopulation(newYork.getPopulation() - migrated);
+            losAngeles.setPopulation(losAngeles.getPopulation() + migrated);
+
+            cityCache.put(NEW_YORK, newYork);
+            cityCache.put(LOS_ANGELES, losAngeles);
+
+            tx.commit();
+        }
+    }
+}
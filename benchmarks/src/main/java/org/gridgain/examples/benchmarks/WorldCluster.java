@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.configuration.ClientConnectorConfiguration;
+import org.apache.ignite.configuration.DataRegionConfiguration;
+import org.apache.ignite.configuration.DataStorageConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.communication.tcp.TcpCommunicationSpi;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.gridgain.examples.App0DataLoader;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * In-JVM cluster for the benchmarks: several server nodes and a client node loaded with the World database.
+ * The nodes are in-memory and use their own discovery and client connector ports, so the numbers don't depend on
+ * the state of a cluster started for the examples and the benchmarks can run next to it.
+ *
+ * The cluster is configured with system properties:
+ * <ul>
+ *     <li><code>bench.servers</code> - number of server nodes, 2 by default;</li>
+ *     <li><code>bench.regionSize</code> - size of the default data region of a server node in MB, 512 by default;</li>
+ *     <li><code>bench.script</code> - script that creates and fills the tables,
+ *     <code>complete/scripts/ignite_world.sql</code> by default.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+public abstract class WorldCluster {
+    /** First discovery port of the benchmark cluster. */
+    private static final int DISCOVERY_PORT = 48500;
+
+    /** First communication port of the benchmark cluster. */
+    private static final int COMMUNICATION_PORT = 48100;
+
+    /** First port of the JDBC/ODBC and thin clients connector of the benchmark cluster. */
+    private static final int CLIENT_CONNECTOR_PORT = 10900;
+
+    /** Server nodes. */
+    protected final List<Ignite> servers = new ArrayList<>();
+
+    /** Client node the benchmarks run on. */
+    protected Ignite client;
+
+    /**
+     * Starts the cluster, loads the data and prepares the benchmark.
+     */
+    @Setup(Level.Trial)
+    public void startCluster() throws Exception {
+        int serversCnt = Integer.getInteger("bench.servers", 2);
+
+        for (int i = 0; i < serversCnt; i++)
+            servers.add(Ignition.start(configuration("server-" + i, false)));
+
+        client = Ignition.start(configuration("client", true));
+
+        App0DataLoader.loadScript(client, System.getProperty("bench.script", "complete/scripts/ignite_world.sql"));
+
+        prepare();
+    }
+
+    /**
+     * Prepares the benchmark once the cluster is started and loaded.
+     */
+    protected void prepare() throws Exception {
+        // No-op.
+    }
+
+    /**
+     * Cleans the benchmark up before the cluster is stopped.
+     */
+    protected void cleanup() {
+        // No-op.
+    }
+
+    /**
+     * @return URL of the thin JDBC driver connected to the first server node.
+     */
+    protected static String jdbcUrl() {
+        return "jdbc:ignite:thin://127.0.0.1:" + CLIENT_CONNECTOR_PORT;
+    }
+
+    /**
+     * Stops all the nodes.
+     */
+    @TearDown(Level.Trial)
+    public void stopCluster() {
+        if (client != null)
+            cleanup();
+
+        if (client != null)
+            client.close();
+
+        for (Ignite server : servers)
+            server.close();
+
+        servers.clear();
+    }
+
+    /**
+     * @param name Node name.
+     * @param clientMode Client mode flag.
+     * @return Node configuration.
+     */
+    private static IgniteConfiguration configuration(String name, boolean clientMode) {
+        TcpDiscoveryVmIpFinder ipFinder = new TcpDiscoveryVmIpFinder();
+
+        ipFinder.setAddresses(Collections.singleton("127.0.0.1:" + DISCOVERY_PORT + ".." + (DISCOVERY_PORT + 9)));
+
+        TcpDiscoverySpi discoverySpi = new TcpDiscoverySpi();
+
+        discoverySpi.setLocalPort(DISCOVERY_PORT);
+        discoverySpi.setIpFinder(ipFinder);
+
+        ClientConnectorConfiguration clientConnector = new ClientConnectorConfiguration();
+
+        clientConnector.setPort(CLIENT_CONNECTOR_PORT);
+
+        TcpCommunicationSpi communicationSpi = new TcpCommunicationSpi();
+
+        communicationSpi.setLocalPort(COMMUNICATION_PORT);
+
+        DataRegionConfiguration region = new DataRegionConfiguration();
+
+        region.setMaxSize(Long.getLong("bench.regionSize", 512) * 1024 * 1024);
+
+        DataStorageConfiguration storage = new DataStorageConfiguration();
+
+        storage.setDefaultDataRegionConfiguration(region);
+
+        IgniteConfiguration cfg = new IgniteConfiguration();
+
+        cfg.setIgniteInstanceName(name);
+        cfg.setClientMode(clientMode);
+        cfg.setLocalHost("127.0.0.1");
+        cfg.setDiscoverySpi(discoverySpi);
+        cfg.setCommunicationSpi(communicationSpi);
+        cfg.setDataStorageConfiguration(storage);
+        cfg.setClientConnectorConfiguration(clientConnector);
+
+        return cfg;
+    }
+}
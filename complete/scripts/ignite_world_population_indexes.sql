@@ -0,0 +1,13 @@
+--
+-- Population indexes for the top-N queries, run after ignite_world.sql
+--
+
+DROP INDEX IF EXISTS idx_city_population;
+DROP INDEX IF EXISTS idx_city_country_code_population;
+DROP INDEX IF EXISTS idx_country_population;
+
+CREATE INDEX idx_city_population ON city (Population DESC);
+
+CREATE INDEX idx_city_country_code_population ON city (CountryCode, Population DESC);
+
+CREATE INDEX idx_country_population ON country (Population DESC);
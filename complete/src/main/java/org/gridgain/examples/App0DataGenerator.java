@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.gridgain.examples.loader.ProgressReporter;
+import org.gridgain.examples.loader.TableSchema;
+import org.gridgain.examples.loader.TableStreamer;
+import org.gridgain.examples.loader.WorldDataGenerator;
+
+/**
+ * The application fills the World database tables with synthetic records of any size. It is used to reproduce
+ * scaling problems like partition hot-spotting and memory pressure that the original ~5k records dataset hides.
+ * Cities are streamed with the same `CityKey` affinity layout as the original data, so all the cities of a country
+ * land in the country's partition.
+ *
+ * The tables must exist already, run `App0DataLoader` or `scripts/ignite_world.sql` first. The generator is
+ * configured with system properties:
+ * <ul>
+ *     <li><code>generator.seed</code> - seed, the same seed and sizes always produce the same data;</li>
+ *     <li><code>generator.cities</code> - number of cities, 1 million by default and at most 2^31-1;</li>
+ *     <li><code>generator.countries</code> - number of countries, 240 by default;</li>
+ *     <li><code>generator.languages</code> - number of languages per country, 4 by default;</li>
+ *     <li><code>generator.skew</code> - Zipf exponent of the cities' distribution across the countries;</li>
+ *     <li><code>generator.clear</code> - set to true to remove the existing records first;</li>
+ *     <li><code>loader.threads</code>, <code>loader.perNodeBufferSize</code>, <code>loader.perNodeParallelOps</code>
+ *     and <code>loader.allowOverwrite</code> - the same as for `App0DataLoader`.</li>
+ * </ul>
+ */
+public class App0DataGenerator {
+    /** Number of cities generated by a thread at once. */
+    private static final int CHUNK_SIZE = 100_000;
+
+    /**
+     * Start the application, connect to the cluster and execute the logic.
+     *
+     * @param args
+     */
+    public static void main(String args[]) throws Exception {
+        WorldDataGenerator generator = new WorldDataGenerator(
+            Long.getLong("generator.seed", 42),
+            Integer.getInteger("generator.countries", 240),
+            Long.getLong("generator.cities", 1_000_000),
+            Integer.getInteger("generator.languages", 4),
+            Double.parseDouble(System.getProperty("generator.skew", "1.0")));
+
+        Ignition.setClientMode(true);
+
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            generate(client, generator, Boolean.getBoolean("generator.clear"));
+        }
+    }
+
+    /**
+     * Streams the generated records into the caches.
+     *
+     * @param client Client node.
+     * @param generator Generator.
+     * @param clear Whether to remove the existing records first.
+     */
+    public static void generate(Ignite client, WorldDataGenerator generator, boolean clear) throws Exception {
+        if (clear) {
+            for (String cache : new String[] {"City", "Country", "CountryLng"})
+                client.cache(cache).clear();
+        }
+
+        try (TableStreamer countries = openStreamer(client, "Country");
+             TableStreamer languages = openStreamer(client, "CountryLng");
+             TableStreamer cities = openStreamer(client, "City")) {
+
+            ProgressReporter reporter = new ProgressReporter(() -> countries.rows() + languages.rows() + cities.rows());
+
+            try {
+                generateCountries(generator, countries, languages);
+
+                generateCities(generator, cities);
+
+                countries.flush();
+                languages.flush();
+                cities.flush();
+            }
+            finally {
+                reporter.close();
+            }
+
+            reporter.finish("generated data");
+
+            System.out.println("Top countries by the number of cities:");
+
+            for (int rank = 0; rank < Math.min(5, generator.countries()); rank++) {
+                System.out.println("    " + generator.countryCode(rank) + ": ~" +
+                    (long)(generator.share(rank) * generator.cities()) + " cities");
+            }
+        }
+    }
+
+    /**
+     * Streams all the countries and their languages.
+     */
+    private static void generateCountries(WorldDataGenerator generator, TableStreamer countries,
+        TableStreamer languages) {
+        String[] countryFields = countries.getSchema().fieldNames(WorldDataGenerator.COUNTRY_COLUMNS);
+        String[] languageFields = languages.getSchema().fieldNames(WorldDataGenerator.LANGUAGE_COLUMNS);
+
+        Object[] countryRow = new Object[countryFields.length];
+        Object[] languageRow = new Object[languageFields.length];
+
+        for (int rank = 0; rank < generator.countries(); rank++) {
+            generator.country(rank, countryRow);
+
+            countries.addRow(countryFields, countryRow);
+
+            for (int lang = 0; lang < generator.languagesPerCountry(); lang++) {
+                generator.language(rank, lang, languageRow);
+
+                languages.addRow(languageFields, languageRow);
+            }
+        }
+    }
+
+    /**
+     * Streams the cities from several threads, every thread generates a range of city IDs.
+     */
+    private static void generateCities(WorldDataGenerator generator, TableStreamer cities) throws Exception {
+        int threads = Integer.getInteger("loader.threads", Runtime.getRuntime().availableProcessors());
+
+        String[] fields = cities.getSchema().fieldNames(WorldDataGenerator.CITY_COLUMNS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<?>> futs = new ArrayList<>();
+
+            for (long from = 1; from <= generator.cities(); from += CHUNK_SIZE) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(from + CHUNK_SIZE, generator.cities() + 1);
+
+                futs.add(executor.submit(() -> {
+                    Object[] row = new Object[fields.length];
+
+                    for (long id = chunkFrom; id < chunkTo; id++) {
+                        generator.city(id, row);
+
+                        cities.addRow(fields, row);
+                    }
+                }));
+            }
+
+            for (Future<?> fut : futs)
+                fut.get();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Opens a streamer for a table's cache.
+     */
+    private static TableStreamer openStreamer(Ignite client, String cacheName) {
+        TableSchema schema = TableSchema.forCache(client, cacheName);
+
+        if (schema == null)
+            throw new IllegalStateException("Cache doesn't exist, load the World database first: " + cacheName);
+
+        return TableStreamer.fromSystemProperties(client, schema);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.gridgain.examples.loader.ProgressReporter;
+import org.gridgain.examples.loader.SqlScriptParser;
+import org.gridgain.examples.loader.TableSchema;
+import org.gridgain.examples.loader.TableStreamer;
+
+/**
+ * The application loads the World database with {@link org.apache.ignite.IgniteDataStreamer} instead of executing
+ * `scripts/ignite_world.sql` with SQLline. The DDL statements of the script are executed as is, while the INSERTs
+ * are parsed by several threads and streamed into the `City`, `Country` and `CountryLng` caches.
+ *
+ * The loader is configured with system properties:
+ * <ul>
+ *     <li><code>loader.threads</code> - number of parsing threads, the number of CPUs by default;</li>
+ *     <li><code>loader.batchSize</code> - number of statements handed to a parsing thread at once;</li>
+ *     <li><code>loader.perNodeBufferSize</code> - number of entries buffered for a node before they are sent;</li>
+ *     <li><code>loader.perNodeParallelOps</code> - number of concurrent batches in flight per node;</li>
+ *     <li><code>loader.allowOverwrite</code> - set to true to overwrite the existing records when the data is
+ *     reloaded without dropping the tables.</li>
+ * </ul>
+ */
+public class App0DataLoader {
+    /** Cache used to execute the DDL statements while the tables don't exist yet. */
+    private static final String DDL_CACHE_NAME = "WorldLoaderDdl";
+
+    /**
+     * Start the application, connect to the cluster and execute the logic.
+     *
+     * @param args Optional path to the script, `complete/scripts/ignite_world.sql` by default.
+     */
+    public static void main(String args[]) throws Exception {
+        String script = args.length > 0 ? args[0] : "complete/scripts/ignite_world.sql";
+
+        Ignition.setClientMode(true);
+
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            loadScript(client, script);
+        }
+    }
+
+    /**
+     * Executes the script: DDL statements synchronously one by one, INSERTs through data streamers.
+     *
+     * @param client Client node.
+     * @param script Path to the script.
+     */
+    public static void loadScript(Ignite client, String script) throws Exception {
+        int batchSize = Integer.getInteger("loader.batchSize", 1_000);
+
+        ScriptLoader loader = new ScriptLoader(client, Integer.getInteger("loader.threads",
+            Runtime.getRuntime().availableProcessors()));
+
+        ProgressReporter reporter = new ProgressReporter(loader::rows);
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            SqlScriptParser parser = new SqlScriptParser(reader);
+
+            List<String> batch = new ArrayList<>(batchSize);
+
+            String stmt;
+
+            while ((stmt = parser.nextStatement()) != null && !loader.failed()) {
+                if (SqlScriptParser.isInsert(stmt)) {
+                    batch.add(stmt);
+
+                    if (batch.size() == batchSize) {
+                        loader.submit(batch);
+
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                else if (!stmt.regionMatches(true, 0, "SET STREAMING", 0, 13)) {
+                    if (!batch.isEmpty()) {
+                        loader.submit(batch);
+
+                        batch = new ArrayList<>(batchSize);
+                    }
+
+                    // The rows streamed so far must land before the schema changes.
+                    loader.flush();
+
+                    executeDdl(client, stmt);
+                }
+            }
+
+            if (!batch.isEmpty())
+                loader.submit(batch);
+
+            loader.flush();
+        }
+        finally {
+            loader.close();
+
+            reporter.close();
+
+            client.destroyCache(DDL_CACHE_NAME);
+        }
+
+        reporter.finish("the script");
+    }
+
+    /**
+     * Executes a DDL statement. DDL doesn't depend on the cache it's executed on, but there must be at least one,
+     * so an empty cache is created for that purpose.
+     */
+    private static void executeDdl(Ignite client, String stmt) {
+        IgniteCache<?, ?> cache = client.getOrCreateCache(new CacheConfiguration<>(DDL_CACHE_NAME).setSqlSchema("PUBLIC"));
+
+        cache.query(new SqlFieldsQuery(stmt)).getAll();
+    }
+
+    /**
+     * Parses batches of INSERTs on a thread pool and streams the rows into the caches of the tables.
+     */
+    private static class ScriptLoader implements AutoCloseable {
+        /** Client node. */
+        private final Ignite client;
+
+        /** Parsing threads. */
+        private final ThreadPoolExecutor parsers;
+
+        /** Streamers of the tables by the upper-cased table name. */
+        private final Map<String, TableStreamer> streamers = new ConcurrentHashMap<>();
+
+        /** Batches submitted, but not parsed yet: every batch is a party, the reader is the first one. */
+        private final Phaser pending = new Phaser(1);
+
+        /** Rows loaded by the streamers that have been closed already, guarded by the loader. */
+        private long closedRows;
+
+        /** First parsing or loading error. */
+        private final AtomicReference<Throwable> err = new AtomicReference<>();
+
+        /** */
+        ScriptLoader(Ignite client, int threads) {
+            this.client = client;
+
+            // Bounded queue so that the reader doesn't run ahead of the parsers; the reader parses on its own
+            // once the queue is full.
+            parsers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+
+        /**
+         * Hands a batch of INSERTs over to a parsing thread.
+         */
+        void submit(List<String> batch) {
+            pending.register();
+
+            parsers.execute(() -> {
+                try {
+                    for (String stmt : batch) {
+                        SqlScriptParser.Insert insert = SqlScriptParser.parseInsert(stmt);
+
+                        TableStreamer streamer = streamers.computeIfAbsent(insert.getTable().toUpperCase(),
+                            this::openStreamer);
+
+                        streamer.addRow(streamer.getSchema().fieldNames(insert.getColumns()), insert.getValues());
+                    }
+                }
+                catch (Throwable e) {
+                    err.compareAndSet(null, e);
+                }
+                finally {
+                    pending.arriveAndDeregister();
+                }
+            });
+        }
+
+        /**
+         * Opens a streamer for the cache of a table.
+         */
+        private TableStreamer openStreamer(String table) {
+            TableSchema schema = TableSchema.forTable(client, table);
+
+            if (schema == null)
+                throw new IllegalStateException("Table doesn't exist: " + table);
+
+            return TableStreamer.fromSystemProperties(client, schema);
+        }
+
+        /**
+         * Waits until all the submitted batches are parsed, then closes the streamers, so that all the rows
+         * are stored in the cluster.
+         */
+        void flush() throws InterruptedException {
+            // The phase advances once the reader and every batch submitted so far have arrived.
+            pending.awaitAdvanceInterruptibly(pending.arrive());
+
+            for (TableStreamer streamer : streamers.values()) {
+                streamer.close();
+
+                System.out.println("Loaded table [table=" + streamer.getSchema().getTableName() + ", rows=" +
+                    streamer.rows() + ']');
+            }
+
+            // Moves the rows of the closed streamers to the total at once, so that rows() never counts them twice.
+            synchronized (this) {
+                for (TableStreamer streamer : streamers.values())
+                    closedRows += streamer.rows();
+
+                streamers.clear();
+            }
+
+            if (err.get() != null)
+                throw new IllegalStateException("Failed to load the script", err.get());
+        }
+
+        /**
+         * @return {@code true} if loading has failed.
+         */
+        boolean failed() {
+            return err.get() != null;
+        }
+
+        /**
+         * @return Number of rows loaded so far.
+         */
+        synchronized long rows() {
+            long rows = closedRows;
+
+            for (TableStreamer streamer : streamers.values())
+                rows += streamer.rows();
+
+            return rows;
+        }
+
+        /** {@inheritDoc} */
+        @Override public void close() {
+            parsers.shutdownNow();
+
+            for (TableStreamer streamer : streamers.values())
+                streamer.close();
+        }
+    }
+}
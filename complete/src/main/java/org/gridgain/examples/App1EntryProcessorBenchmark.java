@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples;
+
+import java.lang.management.ManagementFactory;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+import org.gridgain.examples.processors.CompareAndSetFieldProcessor;
+import org.gridgain.examples.processors.IncrementFieldProcessor;
+import org.gridgain.examples.processors.SetFieldProcessor;
+
+/**
+ * The application compares the server-side cost of the builder-based `CountryEntryProcessor` from `App1KeyValue`
+ * with the processors that read fields with cached `BinaryField` handles. The invocations are executed by a job
+ * on the primary node of the record, so that the network doesn't hide the difference, and the job reports the
+ * time and the heap allocated per invocation.
+ */
+public class App1EntryProcessorBenchmark {
+    /** Number of measured invocations of every processor. */
+    private static final int INVOCATIONS = Integer.getInteger("bench.invocations", 200_000);
+
+    /**
+     * Start the application, connect to the cluster and execute the logic.
+     *
+     * @param args
+     */
+    public static void main(String args[]) {
+        Ignition.setClientMode(true);
+
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            for (String processor : new String[] {"builder", "set", "cas", "increment"}) {
+                String res = client.compute().affinityCall("Country", "GBR",
+                    new InvokeBenchmarkJob(processor, "GBR", INVOCATIONS));
+
+                System.out.println(res);
+            }
+        }
+    }
+
+    /**
+     * Invokes a processor on a local primary record in a loop. Every invocation changes the record, so that
+     * the processors that skip no-op writes don't get an unfair advantage.
+     */
+    private static class InvokeBenchmarkJob implements IgniteCallable<String> {
+        /** Values the benchmark alternates between. */
+        private static final String[] HEADS = {"Head A", "Head B"};
+
+        @IgniteInstanceResource
+        private Ignite ignite;
+
+        /** Processor name. */
+        private final String processor;
+
+        /** Key of the record. */
+        private final String key;
+
+        /** Number of invocations. */
+        private final int invocations;
+
+        /** */
+        InvokeBenchmarkJob(String processor, String key, int invocations) {
+            this.processor = processor;
+            this.key = key;
+            this.invocations = invocations;
+        }
+
+        @Override public String call() {
+            IgniteCache<String, BinaryObject> cache = ignite.cache("Country").withKeepBinary();
+
+            String origHead = cache.get(key).field("headofstate");
+
+            // The compare-and-set loop expects to find the value set by the previous odd iteration.
+            cache.invoke(key, new SetFieldProcessor<>("headofstate", HEADS[1]));
+
+            // Warming up.
+            run(cache, invocations / 4);
+
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+            long allocStart = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            long start = System.nanoTime();
+
+            run(cache, invocations);
+
+            long time = System.nanoTime() - start;
+            long alloc = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocStart;
+
+            cache.invoke(key, new SetFieldProcessor<>("headofstate", origHead));
+
+            return "Invoke benchmark [processor=" + processor + ", avgTime=" + time / invocations + "ns, allocated=" +
+                alloc / invocations + "B/op]";
+        }
+
+        /** */
+        private void run(IgniteCache<String, BinaryObject> cache, int cnt) {
+            for (int i = 0; i < cnt; i++) {
+                String head = HEADS[i & 1];
+
+                switch (processor) {
+                    case "builder":
+                        cache.invoke(key, new App1KeyValue.CountryEntryProcessor(), "headofstate", head);
+
+                        break;
+
+                    case "set":
+                        cache.invoke(key, new SetFieldProcessor<>("headofstate", head));
+
+                        break;
+
+                    case "cas":
+                        cache.invoke(key, new CompareAndSetFieldProcessor<>("headofstate", HEADS[(i + 1) & 1], head));
+
+                        break;
+
+                    case "increment":
+                        cache.invoke(key, new IncrementFieldProcessor<>("population", (i & 1) == 0 ? 1 : -1));
+
+                        break;
+
+                    default:
+                        throw new IllegalArgumentException("Unknown processor: " + processor);
+                }
+            }
+        }
+    }
+}
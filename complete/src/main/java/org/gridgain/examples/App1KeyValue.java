@@ -17,21 +17,41 @@
 
 package org.gridgain.examples;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import javax.cache.processor.EntryProcessor;
 import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.EntryProcessorResult;
 import javax.cache.processor.MutableEntry;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
 import org.apache.ignite.Ignition;
 import org.apache.ignite.binary.BinaryObject;
 import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.apache.ignite.cache.CacheMetrics;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.affinity.Affinity;
+import org.apache.ignite.cache.eviction.lru.LruEvictionPolicyFactory;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.cluster.ClusterNode;
+import org.apache.ignite.configuration.NearCacheConfiguration;
 import org.gridgain.examples.model.Country;
 
 /**
  * The application demonstrates several key-value techniques. It reads and updates several
  * records using basic `cache.get/put` commands as well as more advanced techniques such as `EntryProcessors`.
+ * It also shows how to read and update many records at once with `getAll/putAll/invokeAll` grouping the keys
+ * by their primary nodes, so that every batch costs a single network round trip. Start the application with
+ * <code>-Dkv.nearCache=true</code> to serve the Country reads from a near cache on the client.
  */
 public class App1KeyValue {
+    /** Maximum number of keys sent to a node in a single batch. */
+    private static final int BATCH_SIZE = Integer.getInteger("kv.batchSize", 512);
 
     /**
      * Start the application, connect to the cluster and execute the logic.
@@ -42,14 +62,86 @@ public class App1KeyValue {
 
         try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
 
-            IgniteCache<String, Country> countryCache = client.cache("Country");
+            boolean near = Boolean.getBoolean("kv.nearCache");
 
-            getPutCountry(countryCache);
+            IgniteCache<String, Country> countryCache = near ? nearCountryCache(client) : client.cache("Country");
 
-            updateSingleField(countryCache);
+            // Hits, misses and evictions are counted only if the statistics are enabled. The setting applies to
+            // the whole cluster, so the previous one is restored once the application completes.
+            boolean statsEnabled = countryCache.localMetrics().isStatisticsEnabled();
+
+            if (near && !statsEnabled)
+                countryCache.enableStatistics(true);
+
+            try {
+                getPutCountry(countryCache);
+
+                updateSingleField(countryCache);
+
+                updateCountriesBatch(client, countryCache);
+
+                compareSingleAndBatchReads(client, countryCache);
+
+                readHotCountry(countryCache);
+
+                if (near)
+                    printNearCacheMetrics(countryCache);
+            }
+            finally {
+                if (near && !statsEnabled)
+                    countryCache.enableStatistics(false);
+            }
         }
     }
 
+    /**
+     * Opens the Country cache with a near cache on the client. The Country records are read on every request
+     * and rarely updated, so the reads are served locally, while the updates are still propagated to the
+     * near cache by the server nodes.
+     *
+     * @param client Client node.
+     * @return Cache instance backed by the near cache.
+     */
+    private static IgniteCache<String, Country> nearCountryCache(Ignite client) {
+        NearCacheConfiguration<String, Country> nearCfg = new NearCacheConfiguration<>();
+
+        // Keeping the most recently used countries only.
+        nearCfg.setNearEvictionPolicyFactory(new LruEvictionPolicyFactory<>(
+            Integer.getInteger("kv.nearCacheMaxSize", 1_000)));
+
+        return client.getOrCreateNearCache("Country", nearCfg);
+    }
+
+    /**
+     * Reads the same record many times, the case where a near cache helps the most.
+     *
+     * @param countryCache cache instance.
+     */
+    private static void readHotCountry(IgniteCache<String, Country> countryCache) {
+        int reads = 10_000;
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < reads; i++)
+            countryCache.get("USA");
+
+        System.out.println("Read a hot record [reads=" + reads + ", avgLatency=" +
+            (System.nanoTime() - start) / reads / 1000.0 + "us]");
+    }
+
+    /**
+     * Prints the near cache metrics of this client.
+     *
+     * @param countryCache cache instance.
+     */
+    private static void printNearCacheMetrics(IgniteCache<String, Country> countryCache) {
+        CacheMetrics metrics = countryCache.localMetrics();
+
+        System.out.println("Near cache metrics [hits=" + metrics.getCacheHits() + ", misses=" +
+            metrics.getCacheMisses() + ", evictions=" + metrics.getCacheEvictions() + ", size=" +
+            countryCache.localSize(CachePeekMode.NEAR) + ']');
+    }
+
     /**
      * Get and update a record using key-value APIs.
      *
@@ -78,27 +170,138 @@ public class App1KeyValue {
         System.out.println("Current Prime Minister: " + unitedKingdom.getHeadOfState());
 
         String newPrimeMinister = countryCache.<String, BinaryObject>withKeepBinary().
-            invoke("GBR", new CountryEntryProcessor());
+            invoke("GBR", new CountryEntryProcessor(), "headofstate", "Boris Johnson");
 
         System.out.println("New Prime Minister: " + newPrimeMinister);
     }
 
     /**
-     * An EntryProcessor implementation that updates the HeadOfState field right on the server node and uses BinaryObject
-     * APIs to achieve that.
+     * Update many records with a single getAll/putAll or invokeAll call per primary node.
+     *
+     * @param client Client node.
+     * @param countryCache cache instance.
      */
-    private static class CountryEntryProcessor implements EntryProcessor<String, BinaryObject, String> {
+    private static void updateCountriesBatch(Ignite client, IgniteCache<String, Country> countryCache) {
+        Map<String, String> presidents = new TreeMap<>();
+
+        presidents.put("DEU", "Frank-Walter Steinmeier");
+        presidents.put("FRA", "Emmanuel Macron");
+        presidents.put("ITA", "Sergio Mattarella");
+
+        putAllHeadsOfState(client, countryCache, presidents);
+
+        System.out.println("New Presidents: " + presidents);
+
+        // The same value for all the records, the field is updated on the server nodes without moving the records.
+        List<String> realms = Arrays.asList("AUS", "BHS", "BLZ", "CAN", "JAM", "NZL", "PNG", "SLB", "TUV");
+
+        IgniteCache<String, BinaryObject> binaryCache = countryCache.withKeepBinary();
+
+        for (List<String> batch : batchesByPrimaryNode(client.affinity("Country"), realms)) {
+            Map<String, EntryProcessorResult<String>> res = binaryCache.invokeAll(new TreeSet<>(batch),
+                new CountryEntryProcessor(), "headofstate", "Elisabeth II");
+
+            for (Map.Entry<String, EntryProcessorResult<String>> e : res.entrySet())
+                System.out.println("New Head of State [country=" + e.getKey() + ", name=" + e.getValue().get() + ']');
+        }
+    }
+
+    /**
+     * Reads all the countries one by one and then in batches with getAll to show the difference in latency.
+     *
+     * @param client Client node.
+     * @param countryCache cache instance.
+     */
+    private static void compareSingleAndBatchReads(Ignite client, IgniteCache<String, Country> countryCache) {
+        List<String> codes = new ArrayList<>();
+
+        for (List<?> row : countryCache.query(new SqlFieldsQuery("SELECT code FROM Country")).getAll())
+            codes.add((String)row.get(0));
+
+        long start = System.nanoTime();
+
+        for (String code : codes)
+            countryCache.get(code);
+
+        long singleTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+
+        List<List<String>> batches = batchesByPrimaryNode(client.affinity("Country"), codes);
+
+        for (List<String> batch : batches)
+            countryCache.getAll(new TreeSet<>(batch));
+
+        long batchTime = System.nanoTime() - start;
+
+        System.out.println("Read all countries [countries=" + codes.size() + ", get=" + singleTime / 1_000_000 +
+            "ms, getAll=" + batchTime / 1_000_000 + "ms, batches=" + batches.size() + ']');
+    }
+
+    /**
+     * Update the HeadOfState field of several records using getAll/putAll: the records are read and written back
+     * with one round trip per primary node for each operation.
+     *
+     * @param client Client node.
+     * @param countryCache cache instance.
+     * @param heads New heads of state by country code.
+     */
+    private static void putAllHeadsOfState(Ignite client, IgniteCache<String, Country> countryCache,
+        Map<String, String> heads) {
+        for (List<String> batch : batchesByPrimaryNode(client.affinity("Country"), heads.keySet())) {
+            // Sorted maps keep the lock order stable if the cache is ever switched to the transactional mode.
+            Map<String, Country> countries = new TreeMap<>(countryCache.getAll(new TreeSet<>(batch)));
+
+            for (Map.Entry<String, Country> e : countries.entrySet())
+                e.getValue().setHeadOfState(heads.get(e.getKey()));
+
+            countryCache.putAll(countries);
+        }
+    }
+
+    /**
+     * Splits the keys into batches, so that all the keys of a batch have the same primary node and a batch
+     * has at most {@link #BATCH_SIZE} keys.
+     *
+     * @param affinity Cache affinity.
+     * @param keys Keys.
+     * @return Batches of keys.
+     */
+    static <K> List<List<K>> batchesByPrimaryNode(Affinity<K> affinity, Collection<K> keys) {
+        List<List<K>> batches = new ArrayList<>();
+
+        for (Map.Entry<ClusterNode, Collection<K>> e : affinity.mapKeysToNodes(keys).entrySet()) {
+            List<K> nodeKeys = new ArrayList<>(e.getValue());
+
+            for (int from = 0; from < nodeKeys.size(); from += BATCH_SIZE)
+                batches.add(nodeKeys.subList(from, Math.min(from + BATCH_SIZE, nodeKeys.size())));
+        }
+
+        return batches;
+    }
+
+    /**
+     * An EntryProcessor implementation that updates a field right on the server node and uses BinaryObject
+     * APIs to achieve that. The field name and the new value are passed as the first and the second arguments
+     * of the invoke or invokeAll call.
+     */
+    public static class CountryEntryProcessor implements EntryProcessor<String, BinaryObject, String> {
 
         @Override public String process(MutableEntry<String, BinaryObject> entry,
             Object... arguments) throws EntryProcessorException {
 
+            if (!entry.exists())
+                return null;
+
+            String field = (String)arguments[0];
+
             BinaryObjectBuilder builder = entry.getValue().toBuilder();
 
-            builder.setField("headofstate", "Boris Johnson");
+            builder.setField(field, arguments[1]);
 
             entry.setValue(builder.build());
 
-            return entry.getValue().field("headofstate");
+            return String.valueOf(entry.getValue().<Object>field(field));
         }
     }
 }
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.lang.IgniteFuture;
+
+/**
+ * The application demonstrates the asynchronous key-value APIs. Instead of waiting for every `get` or `invoke`
+ * to complete, a single thread keeps many operations in flight and composes them with `CompletableFuture`s.
+ * The number of outstanding operations is bounded, so a fast producer can't overload the cluster.
+ *
+ * The same workload is executed with the blocking and asynchronous APIs and the throughput of both is reported.
+ * Both are warmed up before the measured runs, so that neither of them pays for the JIT compilation of the other.
+ * <ul>
+ *     <li><code>kv.maxInFlight</code> - number of outstanding operations, 64 by default;</li>
+ *     <li><code>kv.rounds</code> - number of times every country is processed in a measured run, 20 by default;</li>
+ *     <li><code>kv.warmupRounds</code> - the same for the warm-up runs, 5 by default.</li>
+ * </ul>
+ *
+ * An Ignite transaction is bound to the thread that started it and allows a single outstanding asynchronous
+ * operation, so the operations of a transaction can't be pipelined and `App2Transactions` stays blocking.
+ */
+public class App1KeyValueAsync {
+    /** Number of times every country is read and updated in a measured run. */
+    private static final int ROUNDS = Integer.getInteger("kv.rounds", 20);
+
+    /** Number of times every country is read and updated in a warm-up run. */
+    private static final int WARMUP_ROUNDS = Integer.getInteger("kv.warmupRounds", 5);
+
+    /**
+     * Start the application, connect to the cluster and execute the logic.
+     *
+     * @param args
+     */
+    public static void main(String args[]) throws Exception {
+        Ignition.setClientMode(true);
+
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            IgniteCache<String, BinaryObject> countryCache = client.cache("Country").withKeepBinary();
+
+            List<String> codes = new ArrayList<>();
+
+            for (List<?> row : countryCache.query(new SqlFieldsQuery("SELECT code FROM Country")).getAll())
+                codes.add((String)row.get(0));
+
+            int maxInFlight = Integer.getInteger("kv.maxInFlight", 64);
+
+            readUpdateSync(countryCache, codes, WARMUP_ROUNDS);
+            readUpdateAsync(countryCache, codes, maxInFlight, WARMUP_ROUNDS);
+
+            long syncOps = readUpdateSync(countryCache, codes, ROUNDS);
+
+            long asyncOps = readUpdateAsync(countryCache, codes, maxInFlight, ROUNDS);
+
+            System.out.println("Throughput [sync=" + syncOps + " ops/sec, async=" + asyncOps + " ops/sec]");
+        }
+    }
+
+    /**
+     * Reads every country, writes it back and sets its head of state with an entry processor, using blocking calls.
+     *
+     * @param rounds Number of times every country is processed.
+     * @return Operations per second.
+     */
+    private static long readUpdateSync(IgniteCache<String, BinaryObject> countryCache, List<String> codes,
+        int rounds) {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < rounds; i++) {
+            for (String code : codes) {
+                BinaryObject country = countryCache.get(code);
+
+                countryCache.put(code, country);
+
+                countryCache.invoke(code, new App1KeyValue.CountryEntryProcessor(), "headofstate",
+                    country.field("headofstate"));
+            }
+        }
+
+        return opsPerSec(3L * rounds * codes.size(), start);
+    }
+
+    /**
+     * Does the same as {@link #readUpdateSync} with the asynchronous calls: the put and the invoke of a country
+     * are chained to the completion of its get, while the operations of many countries are in flight at the same
+     * time.
+     *
+     * @param rounds Number of times every country is processed.
+     * @return Operations per second.
+     */
+    private static long readUpdateAsync(IgniteCache<String, BinaryObject> countryCache, List<String> codes,
+        int maxInFlight, int rounds) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        AsyncPipeline pipeline = new AsyncPipeline(maxInFlight, executor);
+
+        long start = System.nanoTime();
+
+        try {
+            List<CompletableFuture<String>> futs = new ArrayList<>(codes.size());
+
+            for (int i = 0; i < rounds; i++) {
+                futs.clear();
+
+                for (String code : codes) {
+                    futs.add(pipeline.submit(() -> countryCache.getAsync(code))
+                        .thenCompose(country -> pipeline.submit(() -> countryCache.putAsync(code, country))
+                            .thenCompose(ignored -> pipeline.submit(() -> countryCache.invokeAsync(code,
+                                new App1KeyValue.CountryEntryProcessor(), "headofstate",
+                                country.field("headofstate"))))));
+                }
+
+                CompletableFuture.allOf(futs.toArray(new CompletableFuture<?>[0])).get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        return opsPerSec(3L * rounds * codes.size(), start);
+    }
+
+    /** */
+    private static long opsPerSec(long ops, long start) {
+        return ops * 1_000_000_000L / Math.max(1, System.nanoTime() - start);
+    }
+
+    /**
+     * Converts asynchronous cache operations into {@link CompletableFuture}s and limits the number of operations
+     * in flight. A caller blocks in {@link #submit} until one of the outstanding operations completes.
+     */
+    static class AsyncPipeline {
+        /** Permits for the operations in flight. */
+        private final Semaphore inFlight;
+
+        /** Executor of the dependent stages, so that they don't run in Ignite threads. */
+        private final ExecutorService executor;
+
+        /**
+         * @param maxInFlight Maximum number of operations in flight.
+         * @param executor Executor of the dependent stages.
+         */
+        AsyncPipeline(int maxInFlight, ExecutorService executor) {
+            this.inFlight = new Semaphore(maxInFlight);
+            this.executor = executor;
+        }
+
+        /**
+         * Starts an asynchronous operation once there is a free slot.
+         *
+         * @param op Operation.
+         * @return Future completed with the result of the operation.
+         */
+        <T> CompletableFuture<T> submit(Supplier<IgniteFuture<T>> op) {
+            inFlight.acquireUninterruptibly();
+
+            CompletableFuture<T> res = new CompletableFuture<>();
+
+            IgniteFuture<T> fut;
+
+            try {
+                fut = op.get();
+            }
+            catch (RuntimeException e) {
+                inFlight.release();
+
+                res.completeExceptionally(e);
+
+                return res;
+            }
+
+            fut.listen(f -> {
+                inFlight.release();
+
+                // Completing in another thread, the listener is called by an Ignite system thread which must not
+                // be blocked by the dependent stages.
+                executor.execute(() -> {
+                    try {
+                        res.complete(f.get());
+                    }
+                    catch (RuntimeException e) {
+                        res.completeExceptionally(e);
+                    }
+                });
+            });
+
+            return res;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.transactions.TransactionConcurrency;
+import org.apache.ignite.transactions.TransactionIsolation;
+import org.gridgain.examples.model.CityKey;
+import org.gridgain.examples.tx.PopulationTransferEngine;
+
+/**
+ * The application runs many concurrent population transfers between random cities from several threads with
+ * pessimistic and optimistic transactions and reports the achieved transaction rate. The total population of all
+ * the cities is checked before and after the run: the transfers must neither lose nor create residents.
+ *
+ * After that, the application executes transfers one by one in every {@link PopulationTransferEngine.TransferMode}
+ * and reports their average latency: batching the reads and writes with getAll/putAll, applying the changes with
+ * invokeAll and running transfers between cities of the same country on the node that keeps the country reduce the
+ * number of network round trips of a transaction.
+ *
+ * The workload is configured with system properties:
+ * <ul>
+ *     <li><code>transfers.threads</code> - number of threads, 16 by default;</li>
+ *     <li><code>transfers.perThread</code> - number of transfers per thread, 1000 by default;</li>
+ *     <li><code>transfers.cities</code> - number of cities the transfers choose from, all the cities by default.
+ *     The fewer cities, the higher the contention;</li>
+ *     <li><code>transfers.timeout</code> - transaction timeout in milliseconds, 5000 by default;</li>
+ *     <li><code>transfers.latencyRuns</code> - number of transfers per mode in the latency comparison, 1000 by
+ *     default.</li>
+ * </ul>
+ */
+public class App2ConcurrentTransfers {
+    /**
+     * Start the application, connect to the cluster and execute the logic.
+     *
+     * @param args
+     */
+    public static void main(String args[]) throws Exception {
+        Ignition.setClientMode(true);
+
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            List<CityKey> cities = cityKeys(client, Integer.getInteger("transfers.cities", Integer.MAX_VALUE));
+
+            runTransfers(client, cities, TransactionConcurrency.PESSIMISTIC, TransactionIsolation.REPEATABLE_READ);
+
+            runTransfers(client, cities, TransactionConcurrency.OPTIMISTIC, TransactionIsolation.SERIALIZABLE);
+
+            compareLatency(client, sameCountryPairs(cityKeys(client, Integer.MAX_VALUE)));
+        }
+    }
+
+    /**
+     * Executes the same sequence of transfers between cities of the same country in every transfer mode, one
+     * transfer at a time, and prints the average latency of a transfer.
+     *
+     * @param pairs Pairs of cities of the same country.
+     */
+    private static void compareLatency(Ignite client, List<CityKey[]> pairs) {
+        int runs = Integer.getInteger("transfers.latencyRuns", 1000);
+
+        long populationBefore = totalPopulation(client);
+
+        for (PopulationTransferEngine.TransferMode mode : PopulationTransferEngine.TransferMode.values()) {
+            PopulationTransferEngine engine = new PopulationTransferEngine(client, TransactionConcurrency.PESSIMISTIC,
+                TransactionIsolation.REPEATABLE_READ, Long.getLong("transfers.timeout", 5000), mode);
+
+            // Warming up the code paths and the connections.
+            for (int i = 0; i < Math.min(runs, 100); i++)
+                transferBack(engine, pairs.get(i % pairs.size()), i);
+
+            long start = System.nanoTime();
+
+            for (int i = 0; i < runs; i++)
+                transferBack(engine, pairs.get(i % pairs.size()), i);
+
+            long time = System.nanoTime() - start;
+
+            System.out.println("Transfer latency [mode=" + mode + ", avgMicros=" + time / 1000 / runs +
+                ", committed=" + engine.committed() + ", rejected=" + engine.rejected() + ']');
+        }
+
+        if (populationBefore != totalPopulation(client))
+            throw new IllegalStateException("Total population has changed");
+    }
+
+    /**
+     * Moves a resident between the cities of a pair, the direction alternates so that the cities never run out of
+     * residents.
+     */
+    private static void transferBack(PopulationTransferEngine engine, CityKey[] pair, int i) {
+        if (i % 2 == 0)
+            engine.transfer(pair[0], pair[1], 1);
+        else
+            engine.transfer(pair[1], pair[0], 1);
+    }
+
+    /**
+     * Pairs up cities of the same country.
+     *
+     * @param cities City keys.
+     * @return Pairs of cities.
+     */
+    private static List<CityKey[]> sameCountryPairs(List<CityKey> cities) {
+        Map<String, CityKey> unpaired = new TreeMap<>();
+
+        List<CityKey[]> pairs = new ArrayList<>();
+
+        for (CityKey city : cities) {
+            CityKey other = unpaired.remove(city.getCountryCode());
+
+            if (other == null)
+                unpaired.put(city.getCountryCode(), city);
+            else
+                pairs.add(new CityKey[] {other, city});
+        }
+
+        if (pairs.isEmpty())
+            throw new IllegalStateException("No country has two cities, load the World database first");
+
+        return pairs;
+    }
+
+    /**
+     * Runs the transfers with the given transaction mode.
+     */
+    private static void runTransfers(Ignite client, List<CityKey> cities, TransactionConcurrency concurrency,
+        TransactionIsolation isolation) throws Exception {
+        int threads = Integer.getInteger("transfers.threads", 16);
+        int perThread = Integer.getInteger("transfers.perThread", 1000);
+
+        PopulationTransferEngine engine = new PopulationTransferEngine(client, concurrency, isolation,
+            Long.getLong("transfers.timeout", 5000));
+
+        long populationBefore = totalPopulation(client);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        long start = System.nanoTime();
+
+        try {
+            List<Future<?>> futs = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                futs.add(executor.submit(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+
+                    for (int j = 0; j < perThread; j++) {
+                        int from = rnd.nextInt(cities.size());
+                        int to = (from + 1 + rnd.nextInt(cities.size() - 1)) % cities.size();
+
+                        engine.transfer(cities.get(from), cities.get(to), 1 + rnd.nextInt(100));
+                    }
+                }));
+            }
+
+            for (Future<?> fut : futs)
+                fut.get();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        long time = System.nanoTime() - start;
+
+        long populationAfter = totalPopulation(client);
+
+        System.out.println(engine);
+
+        System.out.println("Finished transfers [concurrency=" + concurrency + ", isolation=" + isolation +
+            ", txPerSec=" + engine.committed() * 1_000_000_000L / time + ", populationBefore=" + populationBefore +
+            ", populationAfter=" + populationAfter + ']');
+
+        if (populationBefore != populationAfter)
+            throw new IllegalStateException("Total population has changed");
+    }
+
+    /**
+     * Reads the keys of the cities.
+     *
+     * @param client Client node.
+     * @param limit Maximum number of the keys.
+     * @return City keys.
+     */
+    private static List<CityKey> cityKeys(Ignite client, int limit) {
+        List<CityKey> keys = new ArrayList<>();
+
+        SqlFieldsQuery query = new SqlFieldsQuery("SELECT id, countrycode FROM City ORDER BY id LIMIT ?").setArgs(limit);
+
+        for (List<?> row : client.cache("City").query(query).getAll())
+            keys.add(new CityKey((Integer)row.get(0), (String)row.get(1)));
+
+        if (keys.size() < 2)
+            throw new IllegalStateException("At least two cities are required, load the World database first");
+
+        return keys;
+    }
+
+    /**
+     * @return Total population of all the cities.
+     */
+    private static long totalPopulation(Ignite client) {
+        SqlFieldsQuery query = new SqlFieldsQuery("SELECT SUM(CAST(population AS BIGINT)) FROM City");
+
+        return ((Number)client.cache("City").query(query).getAll().get(0).get(0)).longValue();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.gridgain.examples.counters.PopulationDeltaAggregator;
+import org.gridgain.examples.model.CityKey;
+
+/**
+ * The application changes the population of the few most populated cities from many threads, the way a popular
+ * city receives most of the updates in a real application. The changes are applied one by one first, and then
+ * through a {@link PopulationDeltaAggregator} that accumulates them locally and flushes the sums periodically.
+ * The application reports the rate of changes in both cases and checks that no change has been lost.
+ *
+ * The workload is configured with system properties:
+ * <ul>
+ *     <li><code>counters.threads</code> - number of threads, 16 by default;</li>
+ *     <li><code>counters.perThread</code> - number of changes per thread, 2000 by default;</li>
+ *     <li><code>counters.hotCities</code> - number of the updated cities, 4 by default;</li>
+ *     <li><code>counters.flushInterval</code> - flush interval of the aggregator in milliseconds, 100 by default.</li>
+ * </ul>
+ */
+public class App2HotCityCounters {
+    /**
+     * Start the application, connect to the cluster and execute the logic.
+     *
+     * @param args
+     */
+    public static void main(String args[]) throws Exception {
+        Ignition.setClientMode(true);
+
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            List<CityKey> cities = hotCities(client, Integer.getInteger("counters.hotCities", 4));
+
+            runChanges(client, cities, 0);
+
+            runChanges(client, cities, Long.getLong("counters.flushInterval", 100));
+        }
+    }
+
+    /**
+     * Changes the population of the cities from several threads.
+     *
+     * @param flushInterval Flush interval of the aggregator, 0 to apply every change immediately.
+     */
+    private static void runChanges(Ignite client, List<CityKey> cities, long flushInterval) throws Exception {
+        int threads = Integer.getInteger("counters.threads", 16);
+        int perThread = Integer.getInteger("counters.perThread", 2000);
+
+        long populationBefore = population(client, cities);
+
+        LongAdder expectedDelta = new LongAdder();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        PopulationDeltaAggregator aggregator = new PopulationDeltaAggregator(client, flushInterval);
+
+        long start = System.nanoTime();
+
+        try {
+            List<Future<?>> futs = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                futs.add(executor.submit(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+
+                    for (int j = 0; j < perThread; j++) {
+                        int delta = rnd.nextInt(-10, 11);
+
+                        aggregator.add(cities.get(rnd.nextInt(cities.size())), delta);
+
+                        expectedDelta.add(delta);
+                    }
+                }));
+            }
+
+            for (Future<?> fut : futs)
+                fut.get();
+        }
+        finally {
+            executor.shutdownNow();
+
+            aggregator.close();
+        }
+
+        long time = System.nanoTime() - start;
+
+        long populationAfter = population(client, cities);
+
+        System.out.println(aggregator);
+
+        System.out.println("Finished population changes [flushInterval=" + flushInterval + ", changesPerSec=" +
+            aggregator.changes() * 1_000_000_000L / time + ", populationBefore=" + populationBefore +
+            ", populationAfter=" + populationAfter + ", expectedDelta=" + expectedDelta.sum() + ']');
+
+        if (populationAfter - populationBefore != expectedDelta.sum())
+            throw new IllegalStateException("Population changes have been lost");
+    }
+
+    /**
+     * @return Keys of the most populated cities.
+     */
+    private static List<CityKey> hotCities(Ignite client, int cnt) {
+        List<CityKey> keys = new ArrayList<>();
+
+        SqlFieldsQuery query = new SqlFieldsQuery("SELECT id, countrycode FROM City ORDER BY population DESC LIMIT ?")
+            .setArgs(cnt);
+
+        for (List<?> row : client.cache("City").query(query).getAll())
+            keys.add(new CityKey((Integer)row.get(0), (String)row.get(1)));
+
+        if (keys.isEmpty())
+            throw new IllegalStateException("No cities found, load the World database first");
+
+        return keys;
+    }
+
+    /**
+     * @return Total population of the cities.
+     */
+    private static long population(Ignite client, List<CityKey> cities) {
+        long res = 0;
+
+        for (CityKey key : cities) {
+            SqlFieldsQuery query = new SqlFieldsQuery("SELECT population FROM City WHERE id = ? AND countrycode = ?")
+                .setArgs(key.getId(), key.getCountryCode());
+
+            res += ((Number)client.cache("City").query(query).getAll().get(0).get(0)).longValue();
+        }
+
+        return res;
+    }
+}
@@ -17,6 +17,8 @@
 
 package org.gridgain.examples;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
 import org.apache.ignite.IgniteTransactions;
@@ -26,10 +28,22 @@ import org.apache.ignite.transactions.TransactionConcurrency;
 import org.apache.ignite.transactions.TransactionIsolation;
 import org.gridgain.examples.model.City;
 import org.gridgain.examples.model.CityKey;
+import org.gridgain.examples.tx.PopulationTransferEngine;
+import org.gridgain.examples.tx.TxMetrics;
 
 /**
  * The application demonstrates how to use the transactional APIs if you need to
  * update a population of two or more Cities atomically.
+ *
+ * After that, the application repeats the transaction in every concurrency and isolation mode and records the
+ * latency distributions of the transaction phases (start, reads, writes, commit) together with the numbers of
+ * rollbacks, timeouts and deadlocks. The metrics are appended to a file periodically and printed at the end.
+ * <ul>
+ *     <li><code>tx.iterations</code> - number of transactions per mode, 1000 by default;</li>
+ *     <li><code>tx.metricsFile</code> - file the metrics are appended to, <code>tx-metrics.log</code> by
+ *     default;</li>
+ *     <li><code>tx.metricsPeriod</code> - period of the dumps in milliseconds, 5000 by default.</li>
+ * </ul>
  */
 public class App2Transactions {
     /**
@@ -44,6 +58,8 @@ public class App2Transactions {
             IgniteCache<CityKey, City> cityCache = client.cache("City");
 
             updateCitiesPopulation(client, cityCache);
+
+            measureTransactionModes(client);
         }
     }
 
@@ -77,4 +93,36 @@ public class App2Transactions {
 
         System.out.println("Population After [NY=" + newYork.getPopulation() + ", LA=" + losAngeles.getPopulation() + "]");
     }
+
+    /**
+     * Moves residents between New York and Los Angeles in every transaction mode and reports the metrics.
+     */
+    private static void measureTransactionModes(Ignite client) {
+        int iterations = Integer.getInteger("tx.iterations", 1000);
+
+        Path file = Paths.get(System.getProperty("tx.metricsFile", "tx-metrics.log"));
+
+        CityKey newYorkPK = new CityKey(3793, "USA");
+        CityKey losAngelesPK = new CityKey(3794, "USA");
+
+        try (TxMetrics metrics = new TxMetrics().dumpPeriodically(file, Long.getLong("tx.metricsPeriod", 5000))) {
+            for (TransactionConcurrency concurrency : TransactionConcurrency.values()) {
+                for (TransactionIsolation isolation : TransactionIsolation.values()) {
+                    PopulationTransferEngine engine = new PopulationTransferEngine(client, concurrency, isolation, 5000)
+                        .metrics(metrics);
+
+                    for (int i = 0; i < iterations; i++) {
+                        if (i % 2 == 0)
+                            engine.transfer(newYorkPK, losAngelesPK, 1);
+                        else
+                            engine.transfer(losAngelesPK, newYorkPK, 1);
+                    }
+                }
+            }
+
+            metrics.dump(System.out);
+        }
+
+        System.out.println("Transaction metrics have been written to " + file.toAbsolutePath());
+    }
 }
@@ -19,39 +19,73 @@
 
 package org.gridgain.examples;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.cache.Cache;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteException;
 import org.apache.ignite.Ignition;
 import org.apache.ignite.binary.BinaryObject;
 import org.apache.ignite.cache.affinity.Affinity;
 import org.apache.ignite.cache.query.QueryCursor;
 import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
 import org.apache.ignite.cluster.ClusterNode;
-import org.apache.ignite.lang.IgniteBiPredicate;
 import org.apache.ignite.lang.IgniteCallable;
 import org.apache.ignite.resources.IgniteInstanceResource;
+import org.gridgain.examples.compute.CityFieldReader;
+import org.gridgain.examples.compute.CountryAverages;
+import org.gridgain.examples.compute.PartitionResultCache;
+import org.gridgain.examples.compute.PopulationStats;
+import org.gridgain.examples.compute.PopulationTotal;
+import org.gridgain.examples.compute.WorldPopulationTask;
 
 /**
  * The application calculates an average population across all the cities of a specific country.
  * The application does this by running a compute task on a server node that keeps all the cities of a country.
+ *
+ * Then the application calculates the population statistics of all the countries at once with a map-reduce task
+ * that scans every partition only once, on the node that keeps it, and calculates the averages of all the countries
+ * with one job per country and with one job per node to compare the two.
+ *
+ * Finally the application polls the average population of a country with a job that reuses the result of the
+ * previous job while the cities of the country haven't changed. Use <code>compute.polls</code> system property to
+ * change the number of polls, 100 by default.
  */
 public class App3Compute {
+    /** Number of polls of the cached average. */
+    private static final int POLLS = Integer.getInteger("compute.polls", 100);
+
+    /** Number of attempts of a task that fails because a partition has moved to another node. */
+    private static final int TASK_ATTEMPTS = 3;
+
     /**
      * Start the application, connect to the cluster and execute the logic.
      * @param args
      */
-    public static void main(String args[]) {
+    public static void main(String args[]) throws Exception {
         Ignition.setClientMode(true);
 
         try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
-            calculateAverageCountryPopulation(client, "BRA");
-            calculateAverageCountryPopulation(client, "RUS");
+            calculateAverageCountryPopulation(client, "BRA", false);
+            calculateAverageCountryPopulation(client, "RUS", false);
+
+            calculateAverageCountryPopulation(client, "BRA", true);
+            calculateAverageCountryPopulation(client, "RUS", true);
+
+            calculateWorldPopulationStats(client);
+
+            compareSingleAndBatchedJobs(client);
+
+            pollCachedAverage(client, "BRA");
         }
     }
 
-    private static void calculateAverageCountryPopulation(Ignite client, String countryCode) {
+    private static void calculateAverageCountryPopulation(Ignite client, String countryCode, boolean useIndex) {
         //Getting a cluster node and a partition that store a primary copy of all the cities with 'countryCode'.
         Affinity<String> affinity = client.affinity("Country");
 
@@ -60,17 +94,144 @@ public class App3Compute {
         int partition = affinity.partition(countryCode);
 
         //Scheduling the task for calculation on that primary node.
-        int[] result = client.compute().affinityCall(Collections.singleton("Country"), partition, new AvgPopulationCalculationTask(
-            countryCode, partition));
+        AvgPopulationCalculationTask task = new AvgPopulationCalculationTask(countryCode, partition);
+
+        if (useIndex)
+            task.useIndex();
+
+        PopulationTotal result = client.compute().affinityCall(Collections.singleton("Country"), partition, task);
 
         System.out.println("Finished task execution [country = " + countryCode + ", avgPopulation=" +
-            result[0] + ", citiesNumber=" + result[1] + "]");
+            result.average() + ", citiesNumber=" + result.cities() + ", useIndex=" + useIndex + "]");
+    }
+    /**
+     * Calculates the population statistics of every country and of the whole world with a single task, scanning the
+     * partitions of a node one by one and then in parallel.
+     */
+    private static void calculateWorldPopulationStats(Ignite client) {
+        //Warming up, the first execution deploys the task on the server nodes.
+        executeWorldPopulationTask(client, false);
+
+        long start = System.nanoTime();
+
+        executeWorldPopulationTask(client, false);
+
+        long serialTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+
+        WorldPopulationTask.Result result = executeWorldPopulationTask(client, true);
+
+        long parallelTime = System.nanoTime() - start;
+
+        System.out.println("World population [serialScan=" + serialTime / 1_000_000 + "ms, parallelScan=" +
+            parallelTime / 1_000_000 + "ms, countries=" + result.countries().size() + ", stats=" + result.world() + ']');
+
+        for (Map.Entry<String, PopulationStats> e : result.countries().entrySet()) {
+            if (e.getKey().equals("BRA") || e.getKey().equals("RUS"))
+                System.out.println("Country population [country=" + e.getKey() + ", stats=" + e.getValue() + ']');
+        }
+    }
+
+    /**
+     * Executes {@link WorldPopulationTask} and executes it again if it fails, the task fails when a partition moves
+     * to another node while it's scanned.
+     *
+     * @param parallel Whether the partitions of a node are scanned in parallel.
+     * @return Result of the task.
+     */
+    private static WorldPopulationTask.Result executeWorldPopulationTask(Ignite client, boolean parallel) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return client.compute().execute(new WorldPopulationTask(parallel), null);
+            }
+            catch (IgniteException e) {
+                if (attempt == TASK_ATTEMPTS)
+                    throw e;
+
+                System.out.println("World population task has failed, retrying [attempt=" + attempt + ", err=" +
+                    e.getMessage() + ']');
+            }
+        }
     }
+
+    /**
+     * Calculates the average population of all the countries with a job per country and then with a job per node.
+     */
+    private static void compareSingleAndBatchedJobs(Ignite client) throws Exception {
+        List<String> codes = new ArrayList<>();
+
+        for (List<?> row : client.cache("Country").query(new SqlFieldsQuery("SELECT code FROM Country")).getAll())
+            codes.add((String)row.get(0));
+
+        Affinity<String> affinity = client.affinity("Country");
+
+        long start = System.nanoTime();
+
+        for (String code : codes) {
+            int partition = affinity.partition(code);
+
+            client.compute().affinityCall(Collections.singleton("Country"), partition,
+                new AvgPopulationCalculationTask(code, partition).quiet());
+        }
+
+        long singleTime = System.nanoTime() - start;
+
+        AtomicInteger received = new AtomicInteger();
+
+        start = System.nanoTime();
+
+        CountryAverages.calculate(client, codes, (code, res) -> received.incrementAndGet()).get();
+
+        long batchTime = System.nanoTime() - start;
+
+        System.out.println("Calculated averages of all countries [countries=" + codes.size() + ", received=" +
+            received.get() + ", jobPerCountry=" + singleTime / 1_000_000 + "ms, jobPerNode=" +
+            batchTime / 1_000_000 + "ms]");
+    }
+
+    /**
+     * Polls the average population of a country with the cached job and changes the population of a city halfway,
+     * which invalidates the cached result.
+     */
+    private static void pollCachedAverage(Ignite client, String countryCode) {
+        int partition = client.affinity("Country").partition(countryCode);
+
+        long[] before = PartitionResultCache.clusterMetrics(client, "City");
+
+        for (int i = 0; i < POLLS; i++) {
+            if (i == POLLS / 2) {
+                client.cache("City").query(new SqlFieldsQuery("UPDATE City SET population = population + 1 " +
+                    "WHERE id = (SELECT MIN(id) FROM City WHERE countrycode = ?)").setArgs(countryCode)).getAll();
+            }
+
+            PopulationTotal result = client.compute().affinityCall(Collections.singleton("Country"), partition,
+                new AvgPopulationCalculationTask(countryCode, partition).quiet().cached());
+
+            if (i == 0 || i == POLLS - 1) {
+                System.out.println("Polled average [country=" + countryCode + ", poll=" + i + ", avgPopulation=" +
+                    result.average() + ", population=" + result.population() + "]");
+            }
+        }
+
+        long[] after = PartitionResultCache.clusterMetrics(client, "City");
+
+        long hits = after[0] - before[0];
+        long misses = after[1] - before[1];
+
+        System.out.println("Result cache [polls=" + POLLS + ", hits=" + hits + ", misses=" + misses +
+            ", hitRate=" + String.format("%.2f", hits * 100.0 / (hits + misses)) + "%]");
+    }
+
     /**
      * Compute job that calculates average population across all the cities of a given country.
      * The job iterates only over a single data partition.
+     *
+     * By default the job scans the whole partition and skips the cities of the other countries stored in it. With
+     * {@link #useIndex()} the job runs a local SQL query instead, which finds the cities of the country with the
+     * <code>idx_country_code</code> index and reads only them.
      */
-    private static class AvgPopulationCalculationTask implements IgniteCallable<int[]> {
+    public static class AvgPopulationCalculationTask implements IgniteCallable<PopulationTotal> {
         @IgniteInstanceResource
         private Ignite ignite;
 
@@ -78,42 +239,121 @@ public class App3Compute {
 
         private int partition;
 
+        private boolean verbose = true;
+
+        private boolean useIndex;
+
+        private boolean cached;
+
         public AvgPopulationCalculationTask(String countryCode, int partition) {
             this.partition = partition;
             this.countryCode = countryCode;
         }
 
-        @Override public int[] call() throws Exception {
-            System.out.println("Calculating average [country=" + countryCode + ", partition=" + partition +
-                ", node = " + ignite.cluster().localNode().id() + "]");
+        /**
+         * Disables the console output of the job, for instance when it's executed by benchmarks.
+         *
+         * @return {@code this} for chaining.
+         */
+        public AvgPopulationCalculationTask quiet() {
+            verbose = false;
+
+            return this;
+        }
+
+        /**
+         * Makes the job read the cities of the country with the index on the country code rather than scan the
+         * whole partition.
+         *
+         * @return {@code this} for chaining.
+         */
+        public AvgPopulationCalculationTask useIndex() {
+            useIndex = true;
+
+            return this;
+        }
+
+        /**
+         * Makes the job reuse the result calculated by a previous job on the same node while the partition hasn't
+         * been updated, see {@link PartitionResultCache}.
+         *
+         * @return {@code this} for chaining.
+         */
+        public AvgPopulationCalculationTask cached() {
+            cached = true;
+
+            return this;
+        }
+
+        @Override public PopulationTotal call() throws Exception {
+            if (verbose) {
+                System.out.println("Calculating average [country=" + countryCode + ", partition=" + partition +
+                    ", node = " + ignite.cluster().localNode().id() + ", useIndex=" + useIndex +
+                    ", cached=" + cached + "]");
+            }
+
+            if (!cached)
+                return calculate();
+
+            long[] res = new PartitionResultCache(ignite, "City").getOrCalculate("avgPopulation#" + countryCode,
+                partition, () -> {
+                    PopulationTotal total = calculate();
+
+                    return total == null ? new long[] {0, 0} : new long[] {total.population(), total.cities()};
+                });
+
+            return res[1] == 0 ? null : new PopulationTotal().merge(res[0], res[1]);
+        }
+
+        /**
+         * Calculates the average with a scan of the partition or with the index.
+         */
+        private PopulationTotal calculate() {
+            if (useIndex)
+                return calculateWithIndex();
 
             //Accessing object records with BinaryObject interface that avoids a need of deserialization and doesn't
             //require to keep models' classes on the server nodes.
             IgniteCache<BinaryObject, BinaryObject> cities = ignite.cache("City").withKeepBinary();
 
+            //Reading the fields resolved once, the reader is used only by this thread.
+            CityFieldReader reader = new CityFieldReader(countryCode);
+
+            //Filtering out cities of other countries that stored in the same partition.
             ScanQuery<BinaryObject, BinaryObject> scanQuery = new ScanQuery<>(partition,
-                new IgniteBiPredicate<BinaryObject, BinaryObject>() {
-                    @Override public boolean apply(BinaryObject key, BinaryObject object) {
-                        //Filtering out cities of other countries that stored in the same partition.
-                        return key.field("CountryCode").equals(countryCode);
-                    }
-                });
+                (key, city) -> reader.matches(key));
 
             //Extra hint to Ignite that the data is available locally.
             scanQuery.setLocal(true);
 
             //Calculation average population across the cities.
-            QueryCursor<Cache.Entry<BinaryObject, BinaryObject>> cursor = cities.query(scanQuery);
-
-            long totalPopulation = 0;
-            int citiesNumber = 0;
+            PopulationTotal total = new PopulationTotal();
 
-            for (Cache.Entry<BinaryObject, BinaryObject> entry: cursor) {
-                totalPopulation += (int)entry.getValue().field("Population");
-                citiesNumber++;
+            try (QueryCursor<Cache.Entry<BinaryObject, BinaryObject>> cursor = cities.query(scanQuery)) {
+                for (Cache.Entry<BinaryObject, BinaryObject> entry : cursor)
+                    total.add(reader.population(entry.getValue()));
             }
 
-            return citiesNumber == 0 ? null : new int[] {(int)(totalPopulation/citiesNumber), citiesNumber};
+            return total.cities() == 0 ? null : total;
+        }
+
+        /**
+         * Calculates the average with a local SQL query that uses the index on the country code.
+         */
+        private PopulationTotal calculateWithIndex() {
+            SqlFieldsQuery query = new SqlFieldsQuery("SELECT SUM(CAST(population AS BIGINT)), COUNT(*) FROM City " +
+                "WHERE countrycode = ?").setArgs(countryCode);
+
+            //The partition is reserved by the affinity call, the local query reads only the primary copies.
+            query.setLocal(true);
+            query.setPartitions(partition);
+
+            List<?> row = ignite.cache("City").query(query).getAll().get(0);
+
+            if (((Number)row.get(1)).longValue() == 0)
+                return null;
+
+            return new PopulationTotal().merge(((Number)row.get(0)).longValue(), ((Number)row.get(1)).longValue());
         }
     }
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples;
+
+import java.util.Collections;
+import java.util.List;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.gridgain.examples.model.CountryStats;
+import org.gridgain.examples.views.CountryStatsView;
+
+/**
+ * The application reads the average population of a country from the CountryStats view that is kept up to date
+ * incrementally, compares the latency of the read with the compute task of `App3Compute` that scans the cities
+ * of the country, and checks that the view follows the changes of the cities. Once the view is closed the statistics
+ * are no longer maintained, and readers can tell it with {@link CountryStatsView#isMaintained}.
+ * Use <code>stats.reads</code> system property to change the number of reads, 1000 by default.
+ */
+public class App3CountryStatsView {
+    /** Number of reads of every kind. */
+    private static final int READS = Integer.getInteger("stats.reads", 1000);
+
+    /**
+     * Start the application, connect to the cluster and execute the logic.
+     *
+     * @param args
+     */
+    public static void main(String args[]) throws Exception {
+        Ignition.setClientMode(true);
+
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            try (CountryStatsView view = new CountryStatsView(client)) {
+                compareReads(client, view, "BRA");
+
+                // Growing the largest city and shrinking it back, the latter makes the view recalculate the maximum.
+                int largestCity = largestCity(client, "BRA");
+
+                updatePopulation(client, largestCity, 20_000_000);
+                printStats(client, view, "BRA");
+
+                updatePopulation(client, largestCity, -20_000_000);
+                printStats(client, view, "BRA");
+            }
+
+            CountryStats stats = client.<String, CountryStats>cache(CountryStatsView.CACHE_NAME).get("BRA");
+
+            System.out.println("Closed the view [country=BRA, maintained=" +
+                CountryStatsView.isMaintained(client, stats) + ']');
+        }
+    }
+
+    /**
+     * Reads the average population from the view and with the compute task.
+     */
+    private static void compareReads(Ignite client, CountryStatsView view, String countryCode) {
+        int partition = client.affinity("Country").partition(countryCode);
+
+        long viewTime = 0;
+        long computeTime = 0;
+
+        // The first round warms up the code paths.
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+
+            for (int i = 0; i < READS; i++)
+                view.get(countryCode);
+
+            viewTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+
+            for (int i = 0; i < READS; i++) {
+                client.compute().affinityCall(Collections.singleton("Country"), partition,
+                    new App3Compute.AvgPopulationCalculationTask(countryCode, partition).quiet());
+            }
+
+            computeTime = System.nanoTime() - start;
+        }
+
+        System.out.println("Average population [country=" + countryCode + ", view=" +
+            view.get(countryCode).getAveragePopulation() + ", viewReadMicros=" + viewTime / 1000 / READS +
+            ", computeMicros=" + computeTime / 1000 / READS + ']');
+    }
+
+    /**
+     * @return ID of the most populated city of a country.
+     */
+    private static int largestCity(Ignite client, String countryCode) {
+        return (Integer)client.cache("City").query(new SqlFieldsQuery("SELECT id FROM City WHERE countrycode = ? " +
+            "ORDER BY population DESC LIMIT 1").setArgs(countryCode)).getAll().get(0).get(0);
+    }
+
+    /**
+     * Changes the population of a city with SQL.
+     */
+    private static void updatePopulation(Ignite client, int cityId, int delta) {
+        client.cache("City").query(new SqlFieldsQuery("UPDATE City SET population = population + ? WHERE id = ?")
+            .setArgs(delta, cityId)).getAll();
+
+        System.out.println("Updated the population [cityId=" + cityId + ", delta=" + delta + ']');
+    }
+
+    /**
+     * Prints the statistics of the view once they match the statistics calculated with SQL, the view is updated
+     * asynchronously.
+     */
+    private static void printStats(Ignite client, CountryStatsView view, String countryCode) throws Exception {
+        List<?> expected = client.cache("City").query(new SqlFieldsQuery("SELECT SUM(CAST(population AS BIGINT)), " +
+            "COUNT(*), MIN(population), MAX(population) FROM City WHERE countrycode = ?").setArgs(countryCode))
+            .getAll().get(0);
+
+        for (int i = 0; i < 50; i++) {
+            CountryStats stats = view.get(countryCode);
+
+            if (stats.getPopulation() == ((Number)expected.get(0)).longValue() &&
+                stats.getCities() == ((Number)expected.get(1)).longValue() &&
+                stats.getMinPopulation() == ((Number)expected.get(2)).longValue() &&
+                stats.getMaxPopulation() == ((Number)expected.get(3)).longValue()) {
+                System.out.println("Country statistics [country=" + countryCode + ", maintained=" +
+                    CountryStatsView.isMaintained(client, stats) + ", stats=" + stats + ']');
+
+                return;
+            }
+
+            Thread.sleep(100);
+        }
+
+        throw new IllegalStateException("The view doesn't match the cities [country=" + countryCode + ", view=" +
+            view.get(countryCode) + ", expected=" + expected + ']');
+    }
+}
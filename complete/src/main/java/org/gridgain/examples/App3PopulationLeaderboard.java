@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples;
+
+import java.util.List;
+import java.util.function.Supplier;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.gridgain.examples.compute.PopulationLeaderboard;
+
+/**
+ * The application reads the most populated cities of the world and of a country and the most populated countries
+ * with a {@link PopulationLeaderboard}, checks them against the same queries executed with distributed SQL and
+ * compares the time of the reads.
+ *
+ * Load `scripts/ignite_world_population_indexes.sql` after the World database to create the population indexes the
+ * queries use, the application prints the plans of the queries to show whether the indexes are used.
+ *
+ * The application is configured with system properties:
+ * <ul>
+ *     <li><code>leaderboard.n</code> - number of the top records, 10 by default;</li>
+ *     <li><code>leaderboard.country</code> - country code for the top cities of a country, CHN by default;</li>
+ *     <li><code>leaderboard.reads</code> - number of the reads of every kind compared with SQL, 1000 by default.</li>
+ * </ul>
+ */
+public class App3PopulationLeaderboard {
+    /** Number of the top records. */
+    private static final int N = Integer.getInteger("leaderboard.n", 10);
+
+    /** Country code. */
+    private static final String COUNTRY = System.getProperty("leaderboard.country", "CHN");
+
+    /**
+     * Start the application, connect to the cluster and execute the logic.
+     *
+     * @param args
+     */
+    public static void main(String args[]) throws Exception {
+        Ignition.setClientMode(true);
+
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            PopulationLeaderboard leaderboard = new PopulationLeaderboard(client);
+
+            compare(client, "topCities", () -> leaderboard.topCities(N),
+                "SELECT countrycode, id, name, population FROM City ORDER BY population DESC LIMIT ?", N);
+
+            compare(client, "topCountryCities", () -> leaderboard.topCities(COUNTRY, N),
+                "SELECT countrycode, id, name, population FROM City WHERE countrycode = ? " +
+                    "ORDER BY countrycode, population DESC LIMIT ?", COUNTRY, N);
+
+            compare(client, "topCountries", () -> leaderboard.topCountries(N),
+                "SELECT code, null, name, population FROM Country ORDER BY population DESC LIMIT ?", N);
+        }
+    }
+
+    /**
+     * Prints the plan of the SQL query, checks that the leaderboard returns the same populations as the query and
+     * compares the time of the reads.
+     */
+    private static void compare(Ignite client, String name, Supplier<List<PopulationLeaderboard.Ranked>> leaderboard,
+        String sql, Object... args) {
+        System.out.println("Plan [query=" + name + ']');
+
+        for (List<?> row : client.cache("City").query(new SqlFieldsQuery("EXPLAIN " + sql).setArgs(args)).getAll())
+            System.out.println("    " + String.valueOf(row.get(0)).replace("\n", "\n    "));
+
+        List<PopulationLeaderboard.Ranked> top = leaderboard.get();
+        List<List<?>> expected = client.cache("City").query(new SqlFieldsQuery(sql).setArgs(args)).getAll();
+
+        // Records with the same population may come in any order.
+        boolean matches = top.size() == expected.size();
+
+        for (int i = 0; matches && i < top.size(); i++)
+            matches = top.get(i).getPopulation() == ((Number)expected.get(i).get(3)).intValue();
+
+        if (!matches)
+            throw new IllegalStateException("The leaderboard doesn't match SQL [query=" + name + ", leaderboard=" +
+                top + ", expected=" + expected + ']');
+
+        int reads = Integer.getInteger("leaderboard.reads", 1000);
+
+        long leaderboardTime = 0;
+        long sqlTime = 0;
+
+        // The first round warms up the code paths and deploys the jobs.
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+
+            for (int i = 0; i < reads; i++)
+                leaderboard.get();
+
+            leaderboardTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+
+            for (int i = 0; i < reads; i++)
+                client.cache("City").query(new SqlFieldsQuery(sql).setArgs(args)).getAll();
+
+            sqlTime = System.nanoTime() - start;
+        }
+
+        System.out.println("Top population [query=" + name + ", n=" + N + ", first=" +
+            (top.isEmpty() ? "none" : top.get(0)) +
+            ", leaderboardMicros=" + leaderboardTime / 1000 / reads + ", sqlMicros=" + sqlTime / 1000 / reads + ']');
+    }
+}
@@ -19,22 +19,60 @@
 
 package org.gridgain.examples;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import javax.cache.configuration.Factory;
 import javax.cache.event.CacheEntryEvent;
 import javax.cache.event.CacheEntryEventFilter;
-import javax.cache.event.CacheEntryListenerException;
-import javax.cache.event.CacheEntryUpdatedListener;
 import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
 import org.apache.ignite.Ignition;
 import org.apache.ignite.binary.BinaryObject;
 import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.ContinuousQueryWithTransformer;
+import org.apache.ignite.cache.query.Query;
+import org.apache.ignite.cache.query.QueryCursor;
 import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.lang.IgniteAsyncCallback;
+import org.apache.ignite.lang.IgniteClosure;
+import org.apache.ignite.spi.communication.tcp.TcpCommunicationSpi;
+import org.gridgain.examples.listeners.EventPipeline;
+import org.gridgain.examples.listeners.EventPipeline.OverflowPolicy;
+import org.gridgain.examples.listeners.PopulationChange;
+import org.gridgain.examples.listeners.PopulationChangeCoalescer;
 import org.gridgain.examples.model.City;
 import org.gridgain.examples.model.CityKey;
+import org.gridgain.examples.processors.IncrementFieldProcessor;
 
 /**
  * The application subscribes for updates from server nodes and gets notified whenever a population of a city is changed.
  * Ignite supports Continuous Queries APIs for that purpose.
+ *
+ * The notifications are processed by an {@link EventPipeline} rather than by the thread that receives them. Then the
+ * application changes the population of a few cities many times while a slow consumer processes the notifications,
+ * once for every overflow policy of the pipeline, and reports how the policies cope with the load. Finally the
+ * application compares the notifications that carry the whole records of the cities with the notifications that
+ * carry only the population changes, produced on the server nodes by a transformer of the query, and receives the
+ * changes merged per city within a time window.
+ *
+ * The load is configured with system properties:
+ * <ul>
+ *     <li><code>cq.updates</code> - number of population changes, 1000 by default;</li>
+ *     <li><code>cq.hotCities</code> - number of the changed cities, 4 by default;</li>
+ *     <li><code>cq.workers</code> - number of workers of the pipeline, 2 by default;</li>
+ *     <li><code>cq.capacity</code> - capacity of the pipeline, 64 by default;</li>
+ *     <li><code>cq.consumerDelay</code> - time the consumer spends on a notification in microseconds, 5000 by
+ *     default;</li>
+ *     <li><code>cq.coalesceWindow</code> - time window within which the changes of a city are merged in milliseconds,
+ *     100 by default.</li>
+ * </ul>
  */
 public class App4ContinousQueries {
     /**
@@ -42,59 +80,344 @@ public class App4ContinousQueries {
      *
      * @param args
      */
-    public static void main(String args[]) {
+    public static void main(String args[]) throws Exception {
         Ignition.setClientMode(true);
 
-        Ignite client = Ignition.start("complete/cfg/ignite-config.xml");
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            try (EventPipeline<BinaryObject, BinaryObject> pipeline =
+                new EventPipeline<BinaryObject, BinaryObject>(App4ContinousQueries::printChange, 1, 16,
+                    OverflowPolicy.BLOCK)) {
+                QueryCursor<?> cursor = subscribeForDataUpdates(client, pipeline);
+
+                try {
+                    SqlFieldsQuery query = new SqlFieldsQuery("UPDATE City SET population = population - 10 " +
+                        "WHERE name = 'Los Angeles'");
+
+                    client.cache("City").query(query).getAll();
 
-        subscribeForDataUpdates(client);
+                    System.out.println("Updated the city record");
+
+                    // The notification is delivered asynchronously.
+                    Thread.sleep(1000);
+                }
+                finally {
+                    cursor.close();
+                }
+            }
 
-        SqlFieldsQuery query = new SqlFieldsQuery("UPDATE City SET population = population - 10 " +
-            "WHERE name = 'Los Angeles'");
+            for (OverflowPolicy policy : OverflowPolicy.values())
+                processChangesWithSlowConsumer(client, policy);
 
-        client.cache("City").query(query);
+            compareNotificationPayloads(client);
 
-        System.out.println("Updated the city record");
+            coalesceChanges(client);
+        }
     }
 
-    private static void subscribeForDataUpdates(Ignite client) {
+    private static QueryCursor<?> subscribeForDataUpdates(Ignite client,
+        EventPipeline<BinaryObject, BinaryObject> pipeline) {
         ContinuousQuery<BinaryObject, BinaryObject> query = new ContinuousQuery<>();
 
-        query.setLocalListener(new ChangesListener());
+        query.setLocalListener(pipeline);
         query.setRemoteFilterFactory(new PopulationChangesFilter());
 
-        client.cache("City").withKeepBinary().query(query);
+        QueryCursor<?> cursor = client.cache("City").withKeepBinary().query(query);
 
         System.out.println("Subscribed for the notifications");
+
+        return cursor;
     }
 
-    private static class ChangesListener implements CacheEntryUpdatedListener<BinaryObject, BinaryObject> {
-        @Override public void onUpdated(
-            Iterable<CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject>> events) throws CacheEntryListenerException {
+    /**
+     * Prints a change of a city.
+     */
+    private static void printChange(CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> event) {
+        CityKey key = event.getKey().deserialize();
+        City value = event.getValue().deserialize();
+
+        System.out.println("City record has been changed [key=" + key + ", value = " + value + ']');
+    }
 
-            for (CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> event : events) {
-                CityKey key = event.getKey().deserialize();
-                City value = event.getValue().deserialize();
+    /**
+     * Changes the population of a few cities many times while the notifications are processed by a slow consumer.
+     */
+    private static void processChangesWithSlowConsumer(Ignite client, OverflowPolicy policy) throws Exception {
+        int updates = Integer.getInteger("cq.updates", 1000);
+        long consumerDelay = Long.getLong("cq.consumerDelay", 5000);
 
-                System.out.println("City record has been changed [key=" + key + ", value = " + value + ']');
+        List<CityKey> cities = hotCities(client);
+
+        try (EventPipeline<BinaryObject, BinaryObject> pipeline = new EventPipeline<>(event -> {
+            event.getValue().deserialize();
+
+            // Simulating a consumer that is slower than the updates, for instance one that writes to a database.
+            LockSupport.parkNanos(consumerDelay * 1000);
+        }, Integer.getInteger("cq.workers", 2), Integer.getInteger("cq.capacity", 64), policy)) {
+            long start = System.nanoTime();
+
+            QueryCursor<?> cursor = subscribeForDataUpdates(client, pipeline);
+
+            try {
+                changePopulation(client, cities, updates);
+
+                // The notifications are delivered asynchronously, the last ones may still be on the way.
+                for (int i = 0; i < 1000 && pipeline.received() < updates; i++)
+                    Thread.sleep(10);
+            }
+            finally {
+                cursor.close();
             }
+
+            long updateTime = System.nanoTime() - start;
+
+            // Waiting until the queued events are processed, a dropped or a coalesced event won't be.
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+
+            while (pipeline.processed() + pipeline.dropped() + pipeline.coalesced() < pipeline.received()) {
+                if (System.nanoTime() - deadline > 0) {
+                    System.err.println("Queued events haven't been processed in time: " + pipeline);
+
+                    break;
+                }
+
+                Thread.sleep(1);
+            }
+
+            long totalTime = System.nanoTime() - start;
+
+            System.out.println(pipeline);
+
+            System.out.println("Processed population changes [policy=" + policy + ", updates=" + updates +
+                ", updateMillis=" + updateTime / 1_000_000 + ", totalMillis=" + totalTime / 1_000_000 + ']');
         }
     }
 
-    private static class PopulationChangesFilter implements Factory<CacheEntryEventFilter<BinaryObject, BinaryObject>> {
+    /**
+     * Changes the population of a few cities many times, receiving the notifications with the whole records of the
+     * cities and then with a transformer that sends only the changed populations, and compares the network traffic
+     * and the time the listener spends on the notifications.
+     */
+    private static void compareNotificationPayloads(Ignite client) throws Exception {
+        int updates = Integer.getInteger("cq.updates", 1000);
+
+        List<CityKey> cities = hotCities(client);
+
+        // The traffic of the updates themselves, subtracted from the traffic of the runs with the notifications.
+        long updateBytes = receivedBytes(client);
+
+        changePopulation(client, cities, updates);
+
+        updateBytes = receivedBytes(client) - updateBytes;
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        LongAdder received = new LongAdder();
+        LongAdder listenerCpuTime = new LongAdder();
+
+        // The listeners consume what they've read, so that the work can't be eliminated as dead code.
+        LongAdder sink = new LongAdder();
+
+        ContinuousQuery<BinaryObject, BinaryObject> fullQuery = new ContinuousQuery<>();
+
+        fullQuery.setRemoteFilterFactory(new PopulationChangesFilter());
+        fullQuery.setLocalListener(events -> {
+            long start = threads.getCurrentThreadCpuTime();
+
+            for (CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e : events) {
+                CityKey key = e.getKey().deserialize();
+                City oldCity = e.getOldValue().deserialize();
+                City city = e.getValue().deserialize();
+
+                sink.add(key.getId() + key.getCountryCode().hashCode() + city.getPopulation() -
+                    oldCity.getPopulation());
+
+                received.increment();
+            }
+
+            listenerCpuTime.add(threads.getCurrentThreadCpuTime() - start);
+        });
+
+        measureNotifications(client, "fullRecord", fullQuery, cities, updates, updateBytes, received,
+            listenerCpuTime);
+
+        received.reset();
+        listenerCpuTime.reset();
+
+        ContinuousQueryWithTransformer<BinaryObject, BinaryObject, byte[]> deltaQuery =
+            new ContinuousQueryWithTransformer<>();
+
+        deltaQuery.setRemoteFilterFactory(new PopulationChangesFilter());
+        deltaQuery.setRemoteTransformerFactory(new PopulationChangeTransformer());
+        deltaQuery.setLocalListener(events -> {
+            long start = threads.getCurrentThreadCpuTime();
+
+            for (byte[] bytes : events) {
+                PopulationChange change = PopulationChange.decode(bytes);
+
+                sink.add(change.getCityId() + change.getCountryCode().hashCode() + change.getNewPopulation() -
+                    change.getOldPopulation());
+
+                received.increment();
+            }
+
+            listenerCpuTime.add(threads.getCurrentThreadCpuTime() - start);
+        });
+
+        measureNotifications(client, "populationChange", deltaQuery, cities, updates, updateBytes, received,
+            listenerCpuTime);
+
+        System.out.println("Consumed notification data [checksum=" + sink.sum() + ']');
+    }
+
+    /**
+     * Changes the population of a few cities many times and receives the changes merged per city within a time
+     * window, then checks that the last change of every city has its current population.
+     */
+    private static void coalesceChanges(Ignite client) throws Exception {
+        int updates = Integer.getInteger("cq.updates", 1000);
+
+        List<CityKey> cities = hotCities(client);
+
+        Map<CityKey, Integer> lastPopulation = new ConcurrentHashMap<>();
+
+        PopulationChangeCoalescer coalescer = new PopulationChangeCoalescer(change -> lastPopulation.put(
+            new CityKey(change.getCityId(), change.getCountryCode()), change.getNewPopulation()),
+            Long.getLong("cq.coalesceWindow", 100));
+
+        ContinuousQueryWithTransformer<BinaryObject, BinaryObject, byte[]> query =
+            new ContinuousQueryWithTransformer<>();
+
+        query.setRemoteFilterFactory(new PopulationChangesFilter());
+        query.setRemoteTransformerFactory(new PopulationChangeTransformer());
+        query.setLocalListener(coalescer);
+
+        QueryCursor<?> cursor = client.cache("City").withKeepBinary().query(query);
+
+        try {
+            changePopulation(client, cities, updates);
+
+            // The notifications are delivered asynchronously, the last ones may still be on the way.
+            for (int i = 0; i < 1000 && coalescer.received() < updates; i++)
+                Thread.sleep(10);
+        }
+        finally {
+            cursor.close();
+        }
+
+        coalescer.close();
+
+        for (CityKey city : cities) {
+            SqlFieldsQuery populationQuery = new SqlFieldsQuery("SELECT population FROM City WHERE id = ? AND " +
+                "countrycode = ?").setArgs(city.getId(), city.getCountryCode());
+
+            Object population = client.cache("City").query(populationQuery).getAll().get(0).get(0);
+
+            if (!population.equals(lastPopulation.get(city)))
+                throw new IllegalStateException("Coalesced changes have missed the last population [city=" + city +
+                    ", population=" + population + ", lastChange=" + lastPopulation.get(city) + ']');
+        }
+
+        System.out.println(coalescer);
+
+        System.out.println("Coalesced population changes [updates=" + updates + ", received=" +
+            coalescer.received() + ", emitted=" + coalescer.emitted() + ", failed=" + coalescer.failed() +
+            ", reduction=" + coalescer.received() / Math.max(1, coalescer.emitted()) + "x]");
+    }
+
+    /**
+     * Changes the population of the cities while the query is running and prints the traffic and the time of the
+     * listener per notification.
+     */
+    private static void measureNotifications(Ignite client, String payload, Query<?> query, List<CityKey> cities,
+        int updates, long updateBytes, LongAdder received, LongAdder listenerCpuTime) throws Exception {
+        long bytes = receivedBytes(client);
+
+        QueryCursor<?> cursor = client.cache("City").withKeepBinary().query(query);
+
+        try {
+            changePopulation(client, cities, updates);
+
+            // The notifications are delivered asynchronously, the last ones may still be on the way.
+            for (int i = 0; i < 1000 && received.sum() < updates; i++)
+                Thread.sleep(10);
+        }
+        finally {
+            cursor.close();
+        }
+
+        bytes = receivedBytes(client) - bytes;
+
+        long events = Math.max(1, received.sum());
+
+        System.out.println("Received notifications [payload=" + payload + ", events=" + received.sum() +
+            ", bytesPerEvent=" + Math.max(0, bytes - updateBytes) / events +
+            ", listenerCpuNanosPerEvent=" + listenerCpuTime.sum() / events + ']');
+    }
+
+    /**
+     * @return Number of bytes received by the application from the other nodes.
+     */
+    private static long receivedBytes(Ignite client) {
+        return ((TcpCommunicationSpi)client.configuration().getCommunicationSpi()).getReceivedBytesCount();
+    }
+
+    /**
+     * @return Keys of the most populated cities, <code>cq.hotCities</code> of them.
+     */
+    private static List<CityKey> hotCities(Ignite client) {
+        List<CityKey> cities = new ArrayList<>();
+
+        for (List<?> row : client.cache("City").query(new SqlFieldsQuery("SELECT id, countrycode FROM City " +
+            "ORDER BY population DESC LIMIT ?").setArgs(Integer.getInteger("cq.hotCities", 4))).getAll())
+            cities.add(new CityKey((Integer)row.get(0), (String)row.get(1)));
+
+        return cities;
+    }
+
+    /**
+     * Changes the population of the cities one by one, growing and shrinking every city back, so the population of
+     * the cities doesn't change in the end.
+     */
+    private static void changePopulation(Ignite client, List<CityKey> cities, int updates) {
+        IgniteCache<CityKey, BinaryObject> cityCache = client.<CityKey, Object>cache("City").withKeepBinary();
+
+        for (int i = 0; i < updates; i++) {
+            cityCache.invoke(cities.get(i % cities.size()),
+                new IncrementFieldProcessor<>("population", (i / cities.size()) % 2 == 0 ? 1 : -1));
+        }
+    }
+
+    public static class PopulationChangesFilter implements Factory<CacheEntryEventFilter<BinaryObject, BinaryObject>> {
         @Override public CacheEntryEventFilter<BinaryObject, BinaryObject> create() {
-            return new CacheEntryEventFilter<BinaryObject, BinaryObject>() {
-                @Override
-                public boolean evaluate(CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e) {
-                    // Notify the application only if the population has been changes.
-                    if (!e.getOldValue().<Integer>field("population").equals(
-                        e.getValue().<Integer>field("population")))
-                        return true;
-
-                    // Don't send a notification in all other cases
-                    return false;
-                }
-            };
+            return new PopulationChangeFilter();
+        }
+    }
+
+    /**
+     * Creates the transformers that send only the population changes of the cities rather than the whole records.
+     */
+    public static class PopulationChangeTransformer implements Factory<IgniteClosure<CacheEntryEvent<? extends
+        BinaryObject, ? extends BinaryObject>, byte[]>> {
+        @Override public IgniteClosure<CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject>, byte[]>
+            create() {
+            return PopulationChange::encode;
+        }
+    }
+
+    /**
+     * The filter is executed in the callback pool of the server node and, since the filter is asynchronous, so is
+     * the local listener of the application. A listener that blocks doesn't stop the notifications of other queries.
+     */
+    @IgniteAsyncCallback
+    private static class PopulationChangeFilter implements CacheEntryEventFilter<BinaryObject, BinaryObject> {
+        @Override public boolean evaluate(CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e) {
+            // Notify the application only if the population has been changes.
+            if (!e.getOldValue().<Integer>field("population").equals(
+                e.getValue().<Integer>field("population")))
+                return true;
+
+            // Don't send a notification in all other cases
+            return false;
         }
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.gridgain.examples.listeners.ResumableCitySubscription;
+import org.gridgain.examples.model.CityKey;
+import org.gridgain.examples.processors.IncrementFieldProcessor;
+
+/**
+ * The application keeps a local copy of the cities with a {@link ResumableCitySubscription}, suspends the
+ * subscription as if the connection to the cluster has been lost, changes a few cities meanwhile and resumes the
+ * subscription, which reloads only the partitions of the changed cities.
+ *
+ * The subscription also resumes by itself when the client reconnects to the cluster. Start the application with
+ * <code>resume.waitReconnect</code> system property set to the number of seconds to wait and restart the server
+ * nodes meanwhile to see it.
+ *
+ * Use <code>resume.changedCities</code> system property to change the number of the cities changed while the
+ * subscription is suspended, 5 by default.
+ */
+public class App4ResumableSubscription {
+    /**
+     * Start the application, connect to the cluster and execute the logic.
+     *
+     * @param args
+     */
+    public static void main(String args[]) throws Exception {
+        Ignition.setClientMode(true);
+
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            long start = System.nanoTime();
+
+            try (ResumableCitySubscription subscription = new ResumableCitySubscription(client)) {
+                System.out.println("Subscribed [millis=" + (System.nanoTime() - start) / 1_000_000 + ", " +
+                    subscription + ']');
+
+                List<CityKey> cities = new ArrayList<>();
+
+                for (List<?> row : client.cache("City").query(new SqlFieldsQuery("SELECT id, countrycode FROM City " +
+                    "ORDER BY id LIMIT ?").setArgs(Integer.getInteger("resume.changedCities", 5))).getAll())
+                    cities.add(new CityKey((Integer)row.get(0), (String)row.get(1)));
+
+                subscription.suspend();
+
+                changePopulation(client, cities, 1000);
+
+                start = System.nanoTime();
+
+                subscription.resume();
+
+                System.out.println("Resumed [millis=" + (System.nanoTime() - start) / 1_000_000 + ", " +
+                    subscription + ']');
+
+                check(client, subscription, cities);
+
+                // The changes made while the subscription is live are received as notifications.
+                changePopulation(client, cities, -1000);
+
+                check(client, subscription, cities);
+
+                int waitReconnect = Integer.getInteger("resume.waitReconnect", 0);
+
+                if (waitReconnect > 0) {
+                    System.out.println("Waiting for a reconnection, restart the server nodes [seconds=" +
+                        waitReconnect + ']');
+
+                    Thread.sleep(waitReconnect * 1000L);
+
+                    System.out.println(subscription);
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes the population of the cities.
+     */
+    private static void changePopulation(Ignite client, List<CityKey> cities, int delta) {
+        IgniteCache<CityKey, BinaryObject> cityCache = client.<CityKey, Object>cache("City").withKeepBinary();
+
+        for (CityKey city : cities)
+            cityCache.invoke(city, new IncrementFieldProcessor<>("population", delta));
+
+        System.out.println("Changed the population [cities=" + cities.size() + ", delta=" + delta + ']');
+    }
+
+    /**
+     * Checks that the local copy of the cities matches the cluster, the notifications are received asynchronously.
+     */
+    private static void check(Ignite client, ResumableCitySubscription subscription, List<CityKey> cities)
+        throws Exception {
+        IgniteCache<CityKey, BinaryObject> cityCache = client.<CityKey, Object>cache("City").withKeepBinary();
+
+        for (int i = 0; i < 50; i++) {
+            boolean matches = true;
+
+            for (CityKey city : cities)
+                matches &= cityCache.get(city).equals(subscription.get(city));
+
+            if (matches) {
+                System.out.println("The local copy matches the cluster [cities=" + cities.size() + ']');
+
+                return;
+            }
+
+            Thread.sleep(100);
+        }
+
+        throw new IllegalStateException("The local copy doesn't match the cluster");
+    }
+}
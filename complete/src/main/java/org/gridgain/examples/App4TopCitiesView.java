@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.gridgain.examples.model.CityKey;
+import org.gridgain.examples.processors.IncrementFieldProcessor;
+import org.gridgain.examples.views.TopCitiesView;
+
+/**
+ * The application builds a {@link TopCitiesView} of the most populated cities while the population of the cities is
+ * being changed, checks that the view matches the cities once the changes stop, and then moves a city to the top of
+ * the view and back.
+ *
+ * The application is configured with system properties:
+ * <ul>
+ *     <li><code>top.n</code> - number of the top cities, 10 by default;</li>
+ *     <li><code>top.pageSize</code> - number of the cities loaded at once, 256 by default;</li>
+ *     <li><code>top.reads</code> - number of the top-N reads compared with SQL, 1000 by default.</li>
+ * </ul>
+ */
+public class App4TopCitiesView {
+    /** Number of the top cities. */
+    private static final int N = Integer.getInteger("top.n", 10);
+
+    /**
+     * Start the application, connect to the cluster and execute the logic.
+     *
+     * @param args
+     */
+    public static void main(String args[]) throws Exception {
+        Ignition.setClientMode(true);
+
+        try (Ignite client = Ignition.start("complete/cfg/ignite-config.xml")) {
+            TopCitiesView view = loadWhileChanging(client);
+
+            try {
+                checkTop(client, view);
+
+                compareReads(client, view);
+
+                // Moving a small city to the top and back.
+                List<?> smallest = client.cache("City").query(new SqlFieldsQuery("SELECT id, countrycode FROM City " +
+                    "ORDER BY population LIMIT 1")).getAll().get(0);
+
+                CityKey city = new CityKey((Integer)smallest.get(0), (String)smallest.get(1));
+
+                changePopulation(client, city, 50_000_000);
+                checkTop(client, view);
+
+                changePopulation(client, city, -50_000_000);
+                checkTop(client, view);
+
+                System.out.println(view);
+            }
+            finally {
+                view.close();
+            }
+        }
+    }
+
+    /**
+     * Builds the view while another thread changes the population of the most populated cities.
+     */
+    private static TopCitiesView loadWhileChanging(Ignite client) throws Exception {
+        List<CityKey> hotCities = new ArrayList<>();
+
+        for (List<?> row : client.cache("City").query(new SqlFieldsQuery("SELECT id, countrycode FROM City " +
+            "ORDER BY population DESC LIMIT ?").setArgs(N)).getAll())
+            hotCities.add(new CityKey((Integer)row.get(0), (String)row.get(1)));
+
+        IgniteCache<CityKey, BinaryObject> cityCache = client.<CityKey, Object>cache("City").withKeepBinary();
+
+        AtomicBoolean stop = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<Integer> changes = executor.submit(() -> {
+            int cnt = 0;
+
+            // Growing and shrinking back, so the population of the cities doesn't change in the end.
+            while (!stop.get() || cnt % (2 * hotCities.size()) != 0) {
+                cityCache.invoke(hotCities.get(cnt % hotCities.size()),
+                    new IncrementFieldProcessor<>("population", (cnt / hotCities.size()) % 2 == 0 ? 1 : -1));
+
+                cnt++;
+            }
+
+            return cnt;
+        });
+
+        try {
+            // Letting the changes start.
+            Thread.sleep(200);
+
+            long start = System.nanoTime();
+
+            TopCitiesView view = new TopCitiesView(client, Integer.getInteger("top.pageSize", 256));
+
+            long loadTime = System.nanoTime() - start;
+
+            stop.set(true);
+
+            System.out.println("Loaded the view [loadMillis=" + loadTime / 1_000_000 + ", changes=" + changes.get() +
+                ", view=" + view + ']');
+
+            return view;
+        }
+        finally {
+            stop.set(true);
+
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Checks that the view matches the cities, the view is updated asynchronously.
+     */
+    private static void checkTop(Ignite client, TopCitiesView view) throws Exception {
+        List<List<?>> expected = client.cache("City").query(new SqlFieldsQuery("SELECT id, countrycode, population " +
+            "FROM City ORDER BY population DESC, countrycode, id LIMIT ?").setArgs(N)).getAll();
+
+        for (int i = 0; i < 50; i++) {
+            List<TopCitiesView.CityPopulation> top = view.top(N);
+
+            if (matches(top, expected)) {
+                // There may be fewer cities than requested.
+                System.out.println("Top cities [n=" + N + ", cities=" + top.size() + ", first=" +
+                    (top.isEmpty() ? "none" : top.get(0)) + ", last=" +
+                    (top.isEmpty() ? "none" : top.get(top.size() - 1)) + ']');
+
+                return;
+            }
+
+            Thread.sleep(100);
+        }
+
+        throw new IllegalStateException("The view doesn't match the cities [view=" + view.top(N) +
+            ", expected=" + expected + ']');
+    }
+
+    /** */
+    private static boolean matches(List<TopCitiesView.CityPopulation> top, List<List<?>> expected) {
+        if (top.size() != expected.size())
+            return false;
+
+        for (int i = 0; i < top.size(); i++) {
+            List<?> row = expected.get(i);
+
+            if (top.get(i).getPopulation() != ((Number)row.get(2)).intValue() ||
+                !top.get(i).getKey().equals(new CityKey((Integer)row.get(0), (String)row.get(1))))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads the top cities from the view and with SQL.
+     */
+    private static void compareReads(Ignite client, TopCitiesView view) {
+        int reads = Integer.getInteger("top.reads", 1000);
+
+        SqlFieldsQuery query = new SqlFieldsQuery("SELECT id, countrycode, name, population FROM City " +
+            "ORDER BY population DESC LIMIT ?").setArgs(N);
+
+        long viewTime = 0;
+        long sqlTime = 0;
+
+        // The first round warms up the code paths.
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+
+            for (int i = 0; i < reads; i++)
+                view.top(N);
+
+            viewTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+
+            for (int i = 0; i < reads; i++)
+                client.cache("City").query(query).getAll();
+
+            sqlTime = System.nanoTime() - start;
+        }
+
+        System.out.println("Top cities reads [n=" + N + ", viewMicros=" + viewTime / 1000 / reads +
+            ", sqlMicros=" + sqlTime / 1000 / reads + ']');
+    }
+
+    /**
+     * Changes the population of a city.
+     */
+    private static void changePopulation(Ignite client, CityKey city, int delta) {
+        IgniteCache<CityKey, BinaryObject> cityCache = client.<CityKey, Object>cache("City").withKeepBinary();
+
+        cityCache.invoke(city, new IncrementFieldProcessor<>("population", delta));
+
+        System.out.println("Changed the population [city=" + city + ", delta=" + delta + ']');
+    }
+}
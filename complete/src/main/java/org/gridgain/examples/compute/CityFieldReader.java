@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.compute;
+
+import org.apache.ignite.binary.BinaryField;
+import org.apache.ignite.binary.BinaryObject;
+
+/**
+ * Reads the country code and the population of the cities of a scan.
+ *
+ * <code>BinaryObject.field(name)</code> looks the field up by name for every record. The reader resolves the
+ * {@link BinaryField}s once, with the types of the first key and the first value, and reads every record through
+ * them, so it doesn't need the model classes on the server nodes. This saves the lookups only: the public binary API
+ * has no way to compare the serialized country code, so a {@link String} is still created for the code of every city
+ * and the population is still boxed.
+ *
+ * A reader is used by a single thread.
+ */
+public class CityFieldReader {
+    /** Requested country code. */
+    private final String countryCode;
+
+    /** Country code field of the key, resolved with the first key. */
+    private BinaryField codeField;
+
+    /** Population field of the value, resolved with the first value. */
+    private BinaryField populationField;
+
+    /**
+     * @param countryCode Country code of the cities to accept.
+     */
+    public CityFieldReader(String countryCode) {
+        this.countryCode = countryCode;
+    }
+
+    /**
+     * @param key City key.
+     * @return {@code true} if the city belongs to the requested country.
+     */
+    public boolean matches(BinaryObject key) {
+        if (codeField == null)
+            codeField = key.type().field("countrycode");
+
+        return countryCode.equals(codeField.value(key));
+    }
+
+    /**
+     * @param city City.
+     * @return Population of the city.
+     */
+    public long population(BinaryObject city) {
+        if (populationField == null)
+            populationField = city.type().field("population");
+
+        Number population = populationField.value(city);
+
+        return population == null ? 0 : population.longValue();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.compute;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import javax.cache.Cache;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.affinity.Affinity;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.cluster.ClusterNode;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+import org.gridgain.examples.processors.BinaryFields;
+
+/**
+ * Calculates the total and average city population of many countries with one compute job per server node.
+ *
+ * The countries are grouped by the node that keeps their cities and, within a node, by partition, so that every
+ * node receives a single job and every partition is scanned once no matter how many of the requested countries it
+ * keeps. The results of a node are passed to the listener as soon as its job completes, without waiting for the
+ * slower nodes.
+ *
+ * A job checks that a partition is primary on its node before and after it scans the partition. If the partition
+ * moves to another node in between, the updates made on the new node might be missed, so the calculation fails and
+ * can be retried.
+ */
+public final class CountryAverages {
+    /** */
+    private CountryAverages() {
+        // No-op.
+    }
+
+    /**
+     * Starts the calculation.
+     *
+     * @param ignite Ignite instance.
+     * @param countryCodes Country codes.
+     * @param lsnr Listener called once for every requested country with the population total of the country, or with
+     * {@code null} if the country has no cities. The listener is called from Ignite threads and must not block.
+     * @return Future completed when the listener has been called for all the countries.
+     */
+    public static CompletableFuture<Void> calculate(Ignite ignite, Collection<String> countryCodes,
+        BiConsumer<String, PopulationTotal> lsnr) {
+        Affinity<String> affinity = ignite.affinity("Country");
+
+        List<CompletableFuture<Void>> futs = new ArrayList<>();
+
+        for (Map.Entry<ClusterNode, Collection<String>> e : affinity.mapKeysToNodes(countryCodes).entrySet()) {
+            Map<Integer, Set<String>> countriesByPart = new TreeMap<>();
+
+            for (String code : e.getValue())
+                countriesByPart.computeIfAbsent(affinity.partition(code), p -> new HashSet<>()).add(code);
+
+            CompletableFuture<Void> fut = new CompletableFuture<>();
+
+            ignite.compute(ignite.cluster().forNode(e.getKey()))
+                .callAsync(new NodeCountriesJob(countriesByPart))
+                .listen(f -> {
+                    try {
+                        for (Map.Entry<String, PopulationTotal> res : f.get().entrySet())
+                            lsnr.accept(res.getKey(), res.getValue());
+
+                        fut.complete(null);
+                    }
+                    catch (RuntimeException ex) {
+                        fut.completeExceptionally(ex);
+                    }
+                });
+
+            futs.add(fut);
+        }
+
+        return CompletableFuture.allOf(futs.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Calculates the averages of the countries stored in the given primary partitions of the local node.
+     */
+    private static class NodeCountriesJob implements IgniteCallable<Map<String, PopulationTotal>> {
+        /** */
+        @IgniteInstanceResource
+        private Ignite ignite;
+
+        /** Requested countries by partition. */
+        private final Map<Integer, Set<String>> countriesByPart;
+
+        /** */
+        NodeCountriesJob(Map<Integer, Set<String>> countriesByPart) {
+            this.countriesByPart = countriesByPart;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Map<String, PopulationTotal> call() {
+            IgniteCache<BinaryObject, BinaryObject> cities = ignite.cache("City").withKeepBinary();
+
+            Affinity<Object> affinity = ignite.affinity("City");
+
+            ClusterNode locNode = ignite.cluster().localNode();
+
+            Map<String, PopulationTotal> res = new HashMap<>();
+
+            for (Map.Entry<Integer, Set<String>> e : countriesByPart.entrySet()) {
+                int part = e.getKey();
+                Set<String> codes = e.getValue();
+
+                checkPrimary(affinity, locNode, part);
+
+                Map<String, PopulationTotal> totals = new HashMap<>();
+
+                for (String code : codes)
+                    totals.put(code, new PopulationTotal());
+
+                ScanQuery<BinaryObject, BinaryObject> query = new ScanQuery<>(part);
+
+                query.setLocal(true);
+
+                try (QueryCursor<Cache.Entry<BinaryObject, BinaryObject>> cursor = cities.query(query)) {
+                    for (Cache.Entry<BinaryObject, BinaryObject> entry : cursor) {
+                        PopulationTotal total = totals.get(BinaryFields.<String>value(entry.getKey(), "countrycode"));
+
+                        if (total != null)
+                            total.add(BinaryFields.<Number>value(entry.getValue(), "population").longValue());
+                    }
+                }
+
+                checkPrimary(affinity, locNode, part);
+
+                for (Map.Entry<String, PopulationTotal> total : totals.entrySet())
+                    res.put(total.getKey(), total.getValue().cities() == 0 ? null : total.getValue());
+            }
+
+            return res;
+        }
+
+        /**
+         * @param affinity Affinity of the City cache.
+         * @param locNode Local node.
+         * @param part Partition.
+         * @throws IgniteException If the local node is no longer the primary node of the partition.
+         */
+        private static void checkPrimary(Affinity<Object> affinity, ClusterNode locNode, int part) {
+            if (!locNode.equals(affinity.mapPartitionToNode(part)))
+                throw new IgniteException("Partition has moved to another node, retry the calculation: " + part);
+        }
+    }
+}
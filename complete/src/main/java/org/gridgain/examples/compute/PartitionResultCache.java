@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.compute;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+/**
+ * Node-local cache of the results of compute jobs that read a single partition of a cache.
+ *
+ * Every update of a partition increments its update counter. A result is stored together with the counter the
+ * partition had before the result was calculated, and is returned only while the counter stays the same, so a
+ * result never outlives a change of the data it was calculated from. Transactions may commit out of order, so the
+ * counter is used only while no update of the partition is in progress: a result is neither stored nor returned
+ * while a transaction holds a reserved counter of the partition.
+ *
+ * The results and the hit and miss counts are kept in the node local map rather than in static fields: the jobs are
+ * peer-deployed, and a class loaded for another client application would start with empty static fields. For the
+ * same reason the results are stored as arrays of longs, which don't depend on the class loader of the job.
+ *
+ * The update counters are read with {@link PartitionUpdateCounters}.
+ */
+public class PartitionResultCache {
+    /** Prefix of the keys in the node local map. */
+    private static final String PREFIX = PartitionResultCache.class.getName() + '#';
+
+    /** Ignite instance. */
+    private final Ignite ignite;
+
+    /** Cache name. */
+    private final String cacheName;
+
+    /** Results by key, every result is prefixed with the update counter. */
+    private final ConcurrentMap<String, long[]> results;
+
+    /** Number of the results returned from the cache. */
+    private final AtomicLong hits;
+
+    /** Number of the results calculated. */
+    private final AtomicLong misses;
+
+    /**
+     * @param ignite Ignite instance of a server node.
+     * @param cacheName Name of the cache the results are calculated from.
+     */
+    @SuppressWarnings("unchecked")
+    public PartitionResultCache(Ignite ignite, String cacheName) {
+        this.ignite = ignite;
+        this.cacheName = cacheName;
+
+        ConcurrentMap<Object, Object> locMap = ignite.cluster().nodeLocalMap();
+
+        results = (ConcurrentMap<String, long[]>)locMap.computeIfAbsent(PREFIX + cacheName + "#results",
+            k -> new ConcurrentHashMap<String, long[]>());
+        hits = (AtomicLong)locMap.computeIfAbsent(PREFIX + cacheName + "#hits", k -> new AtomicLong());
+        misses = (AtomicLong)locMap.computeIfAbsent(PREFIX + cacheName + "#misses", k -> new AtomicLong());
+    }
+
+    /**
+     * Gets a result from the cache or calculates it.
+     *
+     * @param key Key of the result, for instance the job name and its arguments.
+     * @param part Partition the result is calculated from.
+     * @param calc Calculates the result.
+     * @return Result.
+     */
+    public long[] getOrCalculate(String key, int part, Supplier<long[]> calc) {
+        // Only a counter with no updates in progress covers all the changes visible to the calculation.
+        long cntr = PartitionUpdateCounters.localSettled(ignite, cacheName, part);
+
+        String resKey = part + "#" + key;
+
+        long[] cached = results.get(resKey);
+
+        if (cntr >= 0 && cached != null && cached[0] == cntr) {
+            hits.incrementAndGet();
+
+            return Arrays.copyOfRange(cached, 1, cached.length);
+        }
+
+        misses.incrementAndGet();
+
+        long[] res = calc.get();
+
+        // If the partition has been updated meanwhile or an update is still in progress, the result isn't stored.
+        if (cntr >= 0 && PartitionUpdateCounters.localSettled(ignite, cacheName, part) == cntr) {
+            long[] entry = new long[res.length + 1];
+
+            entry[0] = cntr;
+            System.arraycopy(res, 0, entry, 1, res.length);
+
+            results.put(resKey, entry);
+        }
+
+        return res;
+    }
+
+    /**
+     * @return Numbers of hits and misses of the local node.
+     */
+    public long[] metrics() {
+        return new long[] {hits.get(), misses.get()};
+    }
+
+    /**
+     * Gets the hit rate of the caches of all the server nodes.
+     *
+     * @param ignite Ignite instance.
+     * @param cacheName Name of the cache the results are calculated from.
+     * @return Total numbers of hits and misses.
+     */
+    public static long[] clusterMetrics(Ignite ignite, String cacheName) {
+        long[] res = new long[2];
+
+        for (long[] nodeMetrics : ignite.compute().broadcast(new MetricsJob(cacheName))) {
+            res[0] += nodeMetrics[0];
+            res[1] += nodeMetrics[1];
+        }
+
+        return res;
+    }
+
+    /**
+     * Reads the hit and miss counts of a node.
+     */
+    private static class MetricsJob implements IgniteCallable<long[]> {
+        /** */
+        @IgniteInstanceResource
+        private Ignite ignite;
+
+        /** */
+        private final String cacheName;
+
+        /** */
+        MetricsJob(String cacheName) {
+            this.cacheName = cacheName;
+        }
+
+        /** {@inheritDoc} */
+        @Override public long[] call() {
+            return new PartitionResultCache(ignite, cacheName).metrics();
+        }
+    }
+}
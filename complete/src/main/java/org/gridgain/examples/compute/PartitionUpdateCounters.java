@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.compute;
+
+import java.util.Arrays;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.internal.IgniteEx;
+import org.apache.ignite.internal.processors.cache.distributed.dht.topology.GridDhtLocalPartition;
+import org.apache.ignite.internal.processors.cache.distributed.dht.topology.GridDhtPartitionState;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+/**
+ * Reads the update counters of the partitions of a cache. Every update of a partition increments its counter, so
+ * a partition whose counter hasn't moved since it has been read hasn't changed.
+ *
+ * Unlike the rest of the examples, this class uses Ignite internals: the public API exposes the counter of a change
+ * with <code>CacheQueryEntryEvent.getPartitionUpdateCounter</code> only, and neither the cache metrics nor any other
+ * public call return the current counter of a partition. The counters are read from the internal partition topology
+ * of the nodes ({@code IgniteEx}, {@code GridDhtLocalPartition}), which is coupled to the Ignite version of this
+ * project, 2.8.1, and may need changes on an upgrade. {@link PartitionResultCache}, {@code CountryStatsView} and
+ * {@code ResumableCitySubscription} depend on the counters through this class only.
+ */
+public final class PartitionUpdateCounters {
+    /** */
+    private PartitionUpdateCounters() {
+        // No-op.
+    }
+
+    /**
+     * Reads the counter of a partition on the local node.
+     *
+     * @param ignite Ignite instance of a server node.
+     * @param cacheName Cache name.
+     * @param part Partition.
+     * @return Update counter or -1 if the node doesn't own the partition.
+     */
+    public static long local(Ignite ignite, String cacheName, int part) {
+        GridDhtLocalPartition locPart = ((IgniteEx)ignite).cachex(cacheName).context().topology()
+            .localPartition(part);
+
+        return locPart == null || locPart.state() != GridDhtPartitionState.OWNING ? -1 : locPart.updateCounter();
+    }
+
+    /**
+     * Reads the counter of a partition on the local node if no update of the partition is in progress.
+     *
+     * In a transactional cache {@code updateCounter()} is the low watermark of the counter: a transaction reserves
+     * its counters on prepare, and transactions may commit out of order, so a change with a greater counter may be
+     * already visible while the watermark stays below it. The counter returned by this method covers all the
+     * visible changes: it's read only when no counters are reserved beyond the applied one. The applied counter is
+     * read first, so if the reserved one equals it afterwards, there was a moment when the two were equal.
+     *
+     * @param ignite Ignite instance of a server node.
+     * @param cacheName Cache name.
+     * @param part Partition.
+     * @return Update counter or -1 if the node doesn't own the partition or an update of the partition is in
+     *     progress.
+     */
+    public static long localSettled(Ignite ignite, String cacheName, int part) {
+        GridDhtLocalPartition locPart = ((IgniteEx)ignite).cachex(cacheName).context().topology()
+            .localPartition(part);
+
+        if (locPart == null || locPart.state() != GridDhtPartitionState.OWNING)
+            return -1;
+
+        long applied = locPart.updateCounter();
+
+        return locPart.reservedCounter() == applied ? applied : -1;
+    }
+
+    /**
+     * Reads the counters of all the partitions from their primary nodes.
+     *
+     * @param ignite Ignite instance.
+     * @param cacheName Cache name.
+     * @return Update counters by partition, -1 for a partition whose primary copy is being moved.
+     */
+    public static long[] collect(Ignite ignite, String cacheName) {
+        long[] res = new long[ignite.affinity(cacheName).partitions()];
+
+        Arrays.fill(res, -1);
+
+        for (long[] nodeCounters : ignite.compute(ignite.cluster().forServers())
+            .broadcast(new PrimaryCountersJob(cacheName))) {
+            for (int part = 0; part < res.length; part++)
+                res[part] = Math.max(res[part], nodeCounters[part]);
+        }
+
+        return res;
+    }
+
+    /**
+     * Reads the counters of the primary partitions of a node.
+     */
+    private static class PrimaryCountersJob implements IgniteCallable<long[]> {
+        /** */
+        @IgniteInstanceResource
+        private Ignite ignite;
+
+        /** */
+        private final String cacheName;
+
+        /** */
+        PrimaryCountersJob(String cacheName) {
+            this.cacheName = cacheName;
+        }
+
+        /** {@inheritDoc} */
+        @Override public long[] call() {
+            long[] res = new long[ignite.affinity(cacheName).partitions()];
+
+            Arrays.fill(res, -1);
+
+            for (int part : ignite.affinity(cacheName).primaryPartitions(ignite.cluster().localNode()))
+                res[part] = local(ignite, cacheName, part);
+
+            return res;
+        }
+    }
+}
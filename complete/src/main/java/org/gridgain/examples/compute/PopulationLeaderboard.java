@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.compute;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+/**
+ * Top-N queries by population: the most populated cities of the world or of a country and the most populated
+ * countries.
+ *
+ * Every server node finds the top N records of its primary partitions with a local SQL query and the client merges
+ * the per-node results, so only N records per node travel over the network. The cities of a country are stored in a
+ * single partition, so the top cities of a country are read by a single job on the node that keeps the partition.
+ *
+ * The local queries are cheap with the indexes of `scripts/ignite_world_population_indexes.sql`: a node reads the
+ * first N entries of the descending population index, or of the (CountryCode, Population) index for a country,
+ * rather than sorting all its records. Without the indexes the results are the same but every node sorts its
+ * records.
+ *
+ * A partition that moves to another node while the query runs may be missed or read twice, retry the query if the
+ * topology is changing.
+ */
+public class PopulationLeaderboard {
+    /** Orders the records by population, the most populated first. */
+    private static final Comparator<Ranked> ORDER = Comparator
+        .comparingInt(Ranked::getPopulation).reversed()
+        .thenComparing(Ranked::getCode)
+        .thenComparing(r -> r.getCityId() == null ? 0 : r.getCityId());
+
+    /** */
+    private static final String TOP_CITIES = "SELECT countrycode, id, name, population FROM City " +
+        "ORDER BY population DESC LIMIT ?";
+
+    /** Ordered by the country code as well, so the order matches the (CountryCode, Population) index. */
+    private static final String TOP_COUNTRY_CITIES = "SELECT countrycode, id, name, population FROM City " +
+        "WHERE countrycode = ? ORDER BY countrycode, population DESC LIMIT ?";
+
+    /** */
+    private static final String TOP_COUNTRIES = "SELECT code, null, name, population FROM Country " +
+        "ORDER BY population DESC LIMIT ?";
+
+    /** Ignite instance. */
+    private final Ignite ignite;
+
+    /**
+     * @param ignite Ignite instance.
+     */
+    public PopulationLeaderboard(Ignite ignite) {
+        this.ignite = ignite;
+    }
+
+    /**
+     * @param n Number of the cities.
+     * @return Most populated cities, the most populated first.
+     */
+    public List<Ranked> topCities(int n) {
+        return broadcast(new LocalTopJob("City", TOP_CITIES, null, n), n);
+    }
+
+    /**
+     * @param countryCode Country code.
+     * @param n Number of the cities.
+     * @return Most populated cities of the country, the most populated first.
+     */
+    public List<Ranked> topCities(String countryCode, int n) {
+        int part = ignite.affinity("City").partition(countryCode);
+
+        return ignite.compute().affinityCall(Collections.singleton("City"), part,
+            new LocalTopJob("City", TOP_COUNTRY_CITIES, new int[] {part}, countryCode, n));
+    }
+
+    /**
+     * @param n Number of the countries.
+     * @return Most populated countries, the most populated first.
+     */
+    public List<Ranked> topCountries(int n) {
+        return broadcast(new LocalTopJob("Country", TOP_COUNTRIES, null, n), n);
+    }
+
+    /**
+     * Runs the job on every server node and merges the results.
+     */
+    private List<Ranked> broadcast(LocalTopJob job, int n) {
+        List<Ranked> res = new ArrayList<>();
+
+        for (List<Ranked> nodeRes : ignite.compute(ignite.cluster().forServers()).broadcast(job))
+            res.addAll(nodeRes);
+
+        res.sort(ORDER);
+
+        return res.size() > n ? new ArrayList<>(res.subList(0, n)) : res;
+    }
+
+    /**
+     * City or country and its population.
+     */
+    public static class Ranked implements Serializable {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Country code. */
+        private final String code;
+
+        /** City ID or {@code null} for a country. */
+        private final Integer cityId;
+
+        /** */
+        private final String name;
+
+        /** */
+        private final int population;
+
+        /** */
+        Ranked(String code, Integer cityId, String name, int population) {
+            this.code = code;
+            this.cityId = cityId;
+            this.name = name;
+            this.population = population;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public Integer getCityId() {
+            return cityId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getPopulation() {
+            return population;
+        }
+
+        @Override public String toString() {
+            return "Ranked{" +
+                "code='" + code + '\'' +
+                (cityId != null ? ", cityId=" + cityId : "") +
+                ", name='" + name + '\'' +
+                ", population=" + population +
+                '}';
+        }
+    }
+
+    /**
+     * Reads the top records of the given or of all the primary partitions of the local node.
+     */
+    private static class LocalTopJob implements IgniteCallable<List<Ranked>> {
+        /** */
+        @IgniteInstanceResource
+        private Ignite ignite;
+
+        /** */
+        private final String cacheName;
+
+        /** Query returning the country code, the city ID, the name and the population. */
+        private final String sql;
+
+        /** Partitions, {@code null} for the primary partitions of the node. */
+        private final int[] parts;
+
+        /** Query arguments. */
+        private final Object[] args;
+
+        /** */
+        LocalTopJob(String cacheName, String sql, int[] parts, Object... args) {
+            this.cacheName = cacheName;
+            this.sql = sql;
+            this.parts = parts;
+            this.args = args;
+        }
+
+        /** {@inheritDoc} */
+        @Override public List<Ranked> call() {
+            int[] locParts = parts != null ? parts :
+                ignite.affinity(cacheName).primaryPartitions(ignite.cluster().localNode());
+
+            List<Ranked> res = new ArrayList<>();
+
+            if (locParts.length == 0)
+                return res;
+
+            // The backup copies are skipped, every record is read on a single node.
+            SqlFieldsQuery query = new SqlFieldsQuery(sql).setArgs(args).setLocal(true).setPartitions(locParts);
+
+            for (List<?> row : ignite.cache(cacheName).query(query).getAll()) {
+                res.add(new Ranked((String)row.get(0), (Integer)row.get(1), (String)row.get(2),
+                    ((Number)row.get(3)).intValue()));
+            }
+
+            return res;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.compute;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+import org.gridgain.examples.metrics.LatencyHistogram;
+
+/**
+ * Statistics of the populations of a set of cities: count, sum, minimum, maximum and approximate percentiles.
+ *
+ * The statistics are mergeable, so every node can compute them for its own cities and the results are combined
+ * without moving the cities over the network. The percentiles are computed from a sparse histogram with the buckets
+ * of {@link LatencyHistogram} and are reported with an error of about 3%.
+ */
+public class PopulationStats implements Serializable {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** Number of cities. */
+    private long count;
+
+    /** Total population. */
+    private long sum;
+
+    /** Minimum population. */
+    private long min = Long.MAX_VALUE;
+
+    /** Maximum population. */
+    private long max = Long.MIN_VALUE;
+
+    /** Number of cities by histogram bucket. */
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+
+    /**
+     * Adds the population of a city.
+     *
+     * @param population Population.
+     */
+    public void add(long population) {
+        count++;
+        sum += population;
+        min = Math.min(min, population);
+        max = Math.max(max, population);
+
+        buckets.merge(LatencyHistogram.bucket(Math.max(0, population)), 1L, Long::sum);
+    }
+
+    /**
+     * Adds the statistics of other cities.
+     *
+     * @param other Statistics.
+     * @return {@code this} for chaining.
+     */
+    public PopulationStats merge(PopulationStats other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+
+        for (Map.Entry<Integer, Long> e : other.buckets.entrySet())
+            buckets.merge(e.getKey(), e.getValue(), Long::sum);
+
+        return this;
+    }
+
+    /**
+     * @return Number of cities.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return Total population.
+     */
+    public long sum() {
+        return sum;
+    }
+
+    /**
+     * @return Minimum population or 0 if there are no cities.
+     */
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return Maximum population or 0 if there are no cities.
+     */
+    public long max() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * @return Average population or 0 if there are no cities.
+     */
+    public long mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Gets a population that is greater than or equal to the population of the given percentage of the cities.
+     *
+     * @param percentile Percentile, from 0 to 100.
+     * @return Approximate population at the percentile or 0 if there are no cities.
+     */
+    public long percentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100 * count));
+
+        long seen = 0;
+
+        for (Map.Entry<Integer, Long> e : buckets.entrySet()) {
+            seen += e.getValue();
+
+            if (seen >= rank)
+                return Math.max(min, Math.min(LatencyHistogram.highestValue(e.getKey()), max));
+        }
+
+        return max;
+    }
+
+    @Override public String toString() {
+        return "PopulationStats [cities=" + count + ", population=" + sum + ", min=" + min() + ", mean=" + mean() +
+            ", p50=" + percentile(50) + ", p90=" + percentile(90) + ", p99=" + percentile(99) + ", max=" + max() + ']';
+    }
+}
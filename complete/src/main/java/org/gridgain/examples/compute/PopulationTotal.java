@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.compute;
+
+import java.io.Serializable;
+
+/**
+ * Total population and number of a set of cities. Unlike {@link PopulationStats} it has no histogram, so adding a
+ * city costs two additions.
+ */
+public class PopulationTotal implements Serializable {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** Total population. */
+    private long population;
+
+    /** Number of cities. */
+    private long cities;
+
+    /**
+     * Adds the population of a city.
+     *
+     * @param population Population.
+     */
+    public void add(long population) {
+        this.population += population;
+
+        cities++;
+    }
+
+    /**
+     * Adds the total of other cities.
+     *
+     * @param other Total.
+     * @return {@code this} for chaining.
+     */
+    public PopulationTotal merge(PopulationTotal other) {
+        return merge(other.population, other.cities);
+    }
+
+    /**
+     * Adds the total of other cities.
+     *
+     * @param population Total population of the cities.
+     * @param cities Number of the cities.
+     * @return {@code this} for chaining.
+     */
+    public PopulationTotal merge(long population, long cities) {
+        this.population += population;
+        this.cities += cities;
+
+        return this;
+    }
+
+    /**
+     * @return Total population.
+     */
+    public long population() {
+        return population;
+    }
+
+    /**
+     * @return Number of cities.
+     */
+    public long cities() {
+        return cities;
+    }
+
+    /**
+     * @return Average population or 0 if there are no cities.
+     */
+    public long average() {
+        return cities == 0 ? 0 : population / cities;
+    }
+
+    @Override public String toString() {
+        return "PopulationTotal [population=" + population + ", cities=" + cities + ", average=" + average() + ']';
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.compute;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.cache.Cache;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.affinity.Affinity;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.cluster.ClusterNode;
+import org.apache.ignite.compute.ComputeJob;
+import org.apache.ignite.compute.ComputeJobAdapter;
+import org.apache.ignite.compute.ComputeJobResult;
+import org.apache.ignite.compute.ComputeTaskAdapter;
+import org.apache.ignite.resources.IgniteInstanceResource;
+import org.gridgain.examples.processors.BinaryFields;
+
+/**
+ * Computes the population statistics of every country and of the whole world in a single pass over the cities.
+ *
+ * The task sends one job to every server node. The job scans the primary partitions of the node locally and
+ * computes the statistics of the countries whose cities it has seen, the statistics are then merged by
+ * {@link #reduce}. Only the statistics travel over the network, never the cities.
+ *
+ * A parallel task scans the partitions of a node concurrently, one partition per thread of a pool created by the job
+ * and shut down when the job completes. The job reaches the server nodes through peer class loading, so a pool kept
+ * in a static field would outlive the class loader of every deployment and keep it in memory. The pool has as many
+ * threads as the node has cores, use <code>compute.scanThreads</code> system property of the server nodes to change
+ * it.
+ *
+ * All the cities of a country are stored in the same partition. The local scan of a partition keeps it from being
+ * evicted, but not from moving to another node, which then receives the updates instead. The job checks that a
+ * partition is primary on the node before and after it scans the partition, so if the partition moves while the task
+ * is executed, the job fails rather than return incomplete statistics and the task can be retried, as `App3Compute`
+ * does.
+ */
+public class WorldPopulationTask extends ComputeTaskAdapter<Void, WorldPopulationTask.Result> {
+    /** */
+    @IgniteInstanceResource
+    private Ignite ignite;
+
+    /** Whether the partitions of a node are scanned in parallel. */
+    private final boolean parallel;
+
+    /**
+     * Creates a task that scans the partitions of a node in parallel.
+     */
+    public WorldPopulationTask() {
+        this(true);
+    }
+
+    /**
+     * @param parallel Whether the partitions of a node are scanned in parallel.
+     */
+    public WorldPopulationTask(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Map<? extends ComputeJob, ClusterNode> map(List<ClusterNode> subgrid, Void arg) {
+        Affinity<Object> affinity = ignite.affinity("City");
+
+        Map<ComputeJob, ClusterNode> jobs = new HashMap<>();
+
+        for (ClusterNode node : subgrid) {
+            int[] parts = affinity.primaryPartitions(node);
+
+            if (parts.length > 0)
+                jobs.put(new PartitionsJob(parts, parallel), node);
+        }
+
+        if (jobs.isEmpty())
+            throw new IgniteException("No server node keeps the City cache");
+
+        return jobs;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Result reduce(List<ComputeJobResult> results) {
+        Result res = new Result();
+
+        for (ComputeJobResult jobRes : results) {
+            Map<String, PopulationStats> countries = jobRes.getData();
+
+            for (Map.Entry<String, PopulationStats> e : countries.entrySet()) {
+                res.countries.merge(e.getKey(), e.getValue(), PopulationStats::merge);
+
+                res.world.merge(e.getValue());
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Statistics of every country and of the whole world.
+     */
+    public static class Result {
+        /** Statistics by country code. */
+        private final Map<String, PopulationStats> countries = new TreeMap<>();
+
+        /** Statistics of all the cities. */
+        private final PopulationStats world = new PopulationStats();
+
+        /**
+         * @return Statistics by country code, sorted by the code.
+         */
+        public Map<String, PopulationStats> countries() {
+            return countries;
+        }
+
+        /**
+         * @return Statistics of all the cities.
+         */
+        public PopulationStats world() {
+            return world;
+        }
+    }
+
+    /**
+     * Computes the statistics of the countries stored in the given primary partitions of the local node.
+     */
+    private static class PartitionsJob extends ComputeJobAdapter {
+        /** */
+        @IgniteInstanceResource
+        private Ignite ignite;
+
+        /** Partitions. */
+        private final int[] parts;
+
+        /** Whether the partitions are scanned in parallel. */
+        private final boolean parallel;
+
+        /** */
+        PartitionsJob(int[] parts, boolean parallel) {
+            this.parts = parts;
+            this.parallel = parallel;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Map<String, PopulationStats> execute() {
+            if (!parallel) {
+                Map<String, PopulationStats> res = new HashMap<>();
+
+                for (int part : parts)
+                    scan(part, res);
+
+                return res;
+            }
+
+            ExecutorService pool = scanPool();
+
+            List<Future<Map<String, PopulationStats>>> futs = new ArrayList<>(parts.length);
+
+            for (int part : parts)
+                futs.add(pool.submit(() -> scan(part, new HashMap<>())));
+
+            Map<String, PopulationStats> res = new HashMap<>();
+
+            try {
+                for (Future<Map<String, PopulationStats>> fut : futs) {
+                    for (Map.Entry<String, PopulationStats> e : fut.get().entrySet())
+                        res.merge(e.getKey(), e.getValue(), PopulationStats::merge);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new IgniteException("Job has been interrupted", e);
+            }
+            catch (ExecutionException e) {
+                throw new IgniteException("Failed to scan a partition", e.getCause());
+            }
+            finally {
+                // Doesn't affect the completed scans, stops the rest if the job has failed.
+                pool.shutdownNow();
+            }
+
+            return res;
+        }
+
+        /**
+         * Adds the cities of a partition to the statistics.
+         *
+         * @param part Partition.
+         * @param res Statistics by country code.
+         * @return Statistics by country code.
+         */
+        private Map<String, PopulationStats> scan(int part, Map<String, PopulationStats> res) {
+            checkPrimary(part);
+
+            IgniteCache<BinaryObject, BinaryObject> cities = ignite.cache("City").withKeepBinary();
+
+            ScanQuery<BinaryObject, BinaryObject> query = new ScanQuery<>(part);
+
+            query.setLocal(true);
+
+            try (QueryCursor<Cache.Entry<BinaryObject, BinaryObject>> cursor = cities.query(query)) {
+                for (Cache.Entry<BinaryObject, BinaryObject> entry : cursor) {
+                    String country = BinaryFields.value(entry.getKey(), "countrycode");
+                    Number population = BinaryFields.value(entry.getValue(), "population");
+
+                    res.computeIfAbsent(country, c -> new PopulationStats()).add(population.longValue());
+                }
+            }
+
+            // The scan might have missed the updates made on the new primary node.
+            checkPrimary(part);
+
+            return res;
+        }
+
+        /**
+         * @param part Partition.
+         * @throws IgniteException If the local node is no longer the primary node of the partition.
+         */
+        private void checkPrimary(int part) {
+            if (!ignite.cluster().localNode().equals(ignite.affinity("City").mapPartitionToNode(part)))
+                throw new IgniteException("Partition has moved to another node, retry the task: " + part);
+        }
+
+        /**
+         * @return Pool of the parallel scans of the job, no larger than the number of the partitions.
+         */
+        private ExecutorService scanPool() {
+            AtomicInteger cnt = new AtomicInteger();
+
+            int threads = Integer.getInteger("compute.scanThreads", Runtime.getRuntime().availableProcessors());
+
+            return Executors.newFixedThreadPool(Math.max(1, Math.min(threads, parts.length)), r -> {
+                Thread t = new Thread(r, "partition-scan-" + cnt.incrementAndGet());
+
+                t.setDaemon(true);
+
+                return t;
+            });
+        }
+    }
+}
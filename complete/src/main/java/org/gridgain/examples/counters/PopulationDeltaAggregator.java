@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.counters;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.EntryProcessorResult;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.affinity.Affinity;
+import org.apache.ignite.cluster.ClusterNode;
+import org.gridgain.examples.model.CityKey;
+import org.gridgain.examples.processors.IncrementFieldProcessor;
+
+/**
+ * Accumulates population changes of cities locally and applies them to the cluster in batches.
+ *
+ * A few popular cities receive most of the updates, and every update of a city locks and rewrites the whole record.
+ * The aggregator adds the changes to a striped {@link LongAdder} per city instead, so the updating threads don't
+ * contend with each other, and periodically applies the accumulated delta of every changed city with a single
+ * {@code invokeAll} per primary node.
+ *
+ * The trade-off is durability and visibility: the changes that haven't been flushed yet are not visible to the
+ * other applications and are lost if the application fails. The flush interval bounds both, an interval of 0
+ * applies every change immediately. Failed flushes keep the deltas, they are applied by the next flush.
+ *
+ * A delta that fails on its own, because the city doesn't exist or its processor fails, isn't retried: it would fail
+ * again. The delta is reported to the standard error and counted by {@link #failedUpdates}.
+ *
+ * The transfers of `App2Transactions` don't use the aggregator, since a delayed delta can't be a part of a
+ * transaction, and neither does `App4ContinousQueries`, which counts the notifications of every single change.
+ */
+public class PopulationDeltaAggregator implements AutoCloseable {
+    /** City cache. */
+    private final IgniteCache<CityKey, BinaryObject> cityCache;
+
+    /** City cache affinity. */
+    private final Affinity<CityKey> affinity;
+
+    /** Pending deltas by city. The counters are never removed, so an update can't go to a discarded counter. */
+    private final ConcurrentMap<CityKey, LongAdder> deltas = new ConcurrentHashMap<>();
+
+    /** Executor of the periodic flushes, {@code null} if every change is applied immediately. */
+    private final ScheduledExecutorService flusher;
+
+    /** Number of recorded changes. */
+    private final LongAdder changes = new LongAdder();
+
+    /** Number of city updates done by the flushes. */
+    private final LongAdder flushedUpdates = new LongAdder();
+
+    /** Number of {@code invokeAll} calls done by the flushes. */
+    private final LongAdder flushBatches = new LongAdder();
+
+    /** Number of city updates that have failed and whose deltas have been lost. */
+    private final LongAdder failedUpdates = new LongAdder();
+
+    /**
+     * @param ignite Ignite instance.
+     * @param flushIntervalMillis Flush interval in milliseconds, 0 to apply every change immediately.
+     */
+    public PopulationDeltaAggregator(Ignite ignite, long flushIntervalMillis) {
+        this.cityCache = ignite.<CityKey, Object>cache("City").withKeepBinary();
+        this.affinity = ignite.affinity("City");
+
+        if (flushIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "population-delta-flusher");
+
+                t.setDaemon(true);
+
+                return t;
+            });
+
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        }
+        else
+            flusher = null;
+    }
+
+    /**
+     * Records a population change of a city.
+     *
+     * @param city City.
+     * @param delta Population change.
+     */
+    public void add(CityKey city, long delta) {
+        changes.increment();
+
+        if (flusher == null) {
+            flushBatches.increment();
+
+            try {
+                if (cityCache.invoke(city, new IncrementFieldProcessor<>("population", delta)) != null) {
+                    flushedUpdates.increment();
+
+                    return;
+                }
+
+                System.err.println("Population change of a missing city has been lost [city=" + city + ", delta=" +
+                    delta + ']');
+            }
+            catch (EntryProcessorException e) {
+                System.err.println("Population change has failed [city=" + city + ", delta=" + delta + ", err=" +
+                    e.getMessage() + ']');
+            }
+
+            failedUpdates.increment();
+
+            return;
+        }
+
+        LongAdder adder = deltas.get(city);
+
+        if (adder == null)
+            adder = deltas.computeIfAbsent(city, k -> new LongAdder());
+
+        adder.add(delta);
+    }
+
+    /**
+     * Applies the pending deltas to the cluster.
+     */
+    public synchronized void flush() {
+        Map<CityKey, Long> pending = new TreeMap<>();
+
+        for (Map.Entry<CityKey, LongAdder> e : deltas.entrySet()) {
+            long delta = e.getValue().sum();
+
+            if (delta != 0) {
+                // Subtracting rather than resetting keeps the changes added concurrently with the flush.
+                e.getValue().add(-delta);
+
+                pending.put(e.getKey(), delta);
+            }
+        }
+
+        if (pending.isEmpty())
+            return;
+
+        for (Map.Entry<ClusterNode, Collection<CityKey>> e : affinity.mapKeysToNodes(pending.keySet()).entrySet()) {
+            // Sorted, so that the implicit transactions of concurrent flushes lock the cities in the same order.
+            Map<CityKey, EntryProcessor<CityKey, BinaryObject, Long>> batch = new TreeMap<>();
+
+            for (CityKey city : e.getValue())
+                batch.put(city, new IncrementFieldProcessor<>("population", pending.get(city)));
+
+            Map<CityKey, EntryProcessorResult<Long>> res;
+
+            try {
+                res = results(cityCache.invokeAll(batch));
+            }
+            catch (RuntimeException ex) {
+                // Returning the deltas of the failed batch and of the batches that haven't been sent yet.
+                for (Map.Entry<CityKey, Long> p : pending.entrySet())
+                    deltas.get(p.getKey()).add(p.getValue());
+
+                throw ex;
+            }
+
+            flushBatches.increment();
+
+            for (CityKey city : e.getValue()) {
+                long delta = pending.remove(city);
+
+                if (applied(city, delta, res.get(city)))
+                    flushedUpdates.increment();
+                else
+                    failedUpdates.increment();
+            }
+        }
+    }
+
+    /**
+     * @param res Results of {@code invokeAll}, keyed by the binary keys since the cache keeps the binary objects.
+     * @return Results keyed by the cities.
+     */
+    private static Map<CityKey, EntryProcessorResult<Long>> results(Map<?, EntryProcessorResult<Long>> res) {
+        Map<CityKey, EntryProcessorResult<Long>> byCity = new HashMap<>();
+
+        for (Map.Entry<?, EntryProcessorResult<Long>> e : res.entrySet()) {
+            Object key = e.getKey();
+
+            byCity.put(key instanceof BinaryObject ? ((BinaryObject)key).deserialize() : (CityKey)key, e.getValue());
+        }
+
+        return byCity;
+    }
+
+    /**
+     * @param city City.
+     * @param delta Delta.
+     * @param res Result of the processor of the city, {@code null} if the city doesn't exist.
+     * @return {@code true} if the delta has been applied, otherwise the failure is reported.
+     */
+    private static boolean applied(CityKey city, long delta, EntryProcessorResult<Long> res) {
+        if (res == null) {
+            System.err.println("Population change of a missing city has been lost [city=" + city + ", delta=" +
+                delta + ']');
+
+            return false;
+        }
+
+        try {
+            res.get();
+
+            return true;
+        }
+        catch (EntryProcessorException e) {
+            System.err.println("Population change has failed [city=" + city + ", delta=" + delta + ", err=" +
+                e.getMessage() + ']');
+
+            return false;
+        }
+    }
+
+    /** */
+    private void flushQuietly() {
+        try {
+            flush();
+        }
+        catch (RuntimeException e) {
+            System.err.println("Failed to flush population changes, will retry: " + e);
+        }
+    }
+
+    /**
+     * @return Number of recorded changes.
+     */
+    public long changes() {
+        return changes.sum();
+    }
+
+    /**
+     * @return Number of city updates done by the flushes.
+     */
+    public long flushedUpdates() {
+        return flushedUpdates.sum();
+    }
+
+    /**
+     * @return Number of {@code invokeAll} calls done by the flushes.
+     */
+    public long flushBatches() {
+        return flushBatches.sum();
+    }
+
+    /**
+     * @return Number of city updates that have failed and whose deltas have been lost.
+     */
+    public long failedUpdates() {
+        return failedUpdates.sum();
+    }
+
+    /**
+     * Stops the periodic flushes and applies the pending deltas.
+     */
+    @Override public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flush();
+    }
+
+    @Override public String toString() {
+        return "PopulationDeltaAggregator [changes=" + changes() + ", flushedUpdates=" + flushedUpdates() +
+            ", flushBatches=" + flushBatches() + ", failedUpdates=" + failedUpdates() + ']';
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.listeners;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryUpdatedListener;
+import org.gridgain.examples.metrics.LatencyHistogram;
+
+/**
+ * Local listener of a continuous query that hands the events over to a pool of workers, so a slow consumer doesn't
+ * hold the thread that delivers the notifications.
+ *
+ * The events are queued in bounded stripes, one per worker, and the stripe of an event is chosen by its key. All the
+ * events of a key are therefore processed by the same worker in the order they have been received. When a stripe is
+ * full, the {@link OverflowPolicy} decides what happens to a new event.
+ *
+ * The pipeline measures the lag of every event, the time from its arrival to the end of its processing, and tracks
+ * the depth of the queues. With {@link OverflowPolicy#BLOCK} the listener stops the delivery of notifications while
+ * the queues are full, annotate the remote filter of the query with
+ * {@link org.apache.ignite.lang.IgniteAsyncCallback} so that the listener is called from the callback pool rather
+ * than from a thread that delivers the notifications of all the queries of the node.
+ */
+public class EventPipeline<K, V> implements CacheEntryUpdatedListener<K, V>, AutoCloseable {
+    /**
+     * What happens to an event when the queue of its stripe is full.
+     */
+    public enum OverflowPolicy {
+        /** The listener waits for a free slot, slowing down the delivery of the notifications. */
+        BLOCK,
+
+        /** The oldest queued event of the stripe is discarded. */
+        DROP_OLDEST,
+
+        /**
+         * A queued event of the same key is replaced by the new one, so only the latest state of a key is processed.
+         * If no event of the key is queued and the stripe is full, the listener waits for a free slot.
+         */
+        COALESCE
+    }
+
+    /** Consumer of the events. */
+    private final Consumer<CacheEntryEvent<? extends K, ? extends V>> consumer;
+
+    /** Overflow policy. */
+    private final OverflowPolicy policy;
+
+    /** Queues by worker. */
+    private final Stripe[] stripes;
+
+    /** Workers. */
+    private final Thread[] workers;
+
+    /** Time from the arrival of an event to the end of its processing in microseconds. */
+    private final LatencyHistogram lag = new LatencyHistogram();
+
+    /** Number of received events. */
+    private final LongAdder received = new LongAdder();
+
+    /** Number of processed events. */
+    private final LongAdder processed = new LongAdder();
+
+    /** Number of discarded events. */
+    private final LongAdder dropped = new LongAdder();
+
+    /** Number of events replaced by newer events of the same key. */
+    private final LongAdder coalesced = new LongAdder();
+
+    /** Number of events the consumer has failed to process. */
+    private final LongAdder failed = new LongAdder();
+
+    /** Whether the pipeline is closed. */
+    private volatile boolean closed;
+
+    /**
+     * @param consumer Consumer of the events, called by the workers.
+     * @param workers Number of workers.
+     * @param capacity Maximum number of the queued events, split evenly between the workers.
+     * @param policy What happens to an event when the queue is full.
+     */
+    @SuppressWarnings("unchecked")
+    public EventPipeline(Consumer<CacheEntryEvent<? extends K, ? extends V>> consumer, int workers, int capacity,
+        OverflowPolicy policy) {
+        if (workers <= 0 || capacity < workers)
+            throw new IllegalArgumentException("Invalid pipeline size [workers=" + workers + ", capacity=" +
+                capacity + ']');
+
+        this.consumer = consumer;
+        this.policy = policy;
+
+        stripes = (Stripe[])new EventPipeline<?, ?>.Stripe[workers];
+        this.workers = new Thread[workers];
+
+        for (int i = 0; i < workers; i++) {
+            Stripe stripe = stripes[i] = new Stripe(capacity / workers);
+
+            Thread t = new Thread(() -> work(stripe), "event-pipeline-worker-" + i);
+
+            t.setDaemon(true);
+            t.start();
+
+            this.workers[i] = t;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onUpdated(Iterable<CacheEntryEvent<? extends K, ? extends V>> events) {
+        long now = System.nanoTime();
+
+        for (CacheEntryEvent<? extends K, ? extends V> event : events) {
+            received.increment();
+
+            if (closed) {
+                dropped.increment();
+
+                continue;
+            }
+
+            stripes[(event.getKey().hashCode() & Integer.MAX_VALUE) % stripes.length].offer(event, now);
+        }
+    }
+
+    /**
+     * Processes the events of a stripe until the pipeline is closed and the stripe is empty.
+     */
+    private void work(Stripe stripe) {
+        Queued queued;
+
+        while ((queued = stripe.take()) != null) {
+            try {
+                consumer.accept(queued.event);
+            }
+            catch (RuntimeException e) {
+                failed.increment();
+
+                System.err.println("Failed to process an event [key=" + queued.event.getKey() + ", err=" + e + ']');
+            }
+
+            lag.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - queued.arrivalTime));
+
+            processed.increment();
+        }
+    }
+
+    /**
+     * @return Number of received events.
+     */
+    public long received() {
+        return received.sum();
+    }
+
+    /**
+     * @return Number of processed events.
+     */
+    public long processed() {
+        return processed.sum();
+    }
+
+    /**
+     * @return Number of discarded events.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return Number of events replaced by newer events of the same key.
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return Number of events the consumer has failed to process.
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return Current number of the queued events.
+     */
+    public int queueDepth() {
+        int depth = 0;
+
+        for (Stripe stripe : stripes)
+            depth += stripe.size();
+
+        return depth;
+    }
+
+    /**
+     * @return Maximum number of the queued events observed by each stripe, summed over the stripes.
+     */
+    public int maxQueueDepth() {
+        int depth = 0;
+
+        for (Stripe stripe : stripes)
+            depth += stripe.maxSize;
+
+        return depth;
+    }
+
+    /**
+     * @return Time from the arrival of an event to the end of its processing in microseconds.
+     */
+    public LatencyHistogram lag() {
+        return lag;
+    }
+
+    /**
+     * Stops accepting the events, waits until the queued events are processed and stops the workers. The events
+     * received after that are counted as dropped. If the calling thread is interrupted, it stops waiting for the
+     * workers, which still process the queued events, and the interrupt flag is restored.
+     */
+    @Override public void close() {
+        closed = true;
+
+        for (Stripe stripe : stripes)
+            stripe.close();
+
+        try {
+            for (Thread worker : workers)
+                worker.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override public String toString() {
+        return "EventPipeline [policy=" + policy + ", received=" + received() + ", processed=" + processed() +
+            ", dropped=" + dropped() + ", coalesced=" + coalesced() + ", failed=" + failed() +
+            ", queueDepth=" + queueDepth() + ", maxQueueDepth=" + maxQueueDepth() +
+            ", lagP50=" + lag.percentile(50) + "us, lagP99=" + lag.percentile(99) + "us, lagMax=" + lag.max() + "us]";
+    }
+
+    /**
+     * Event waiting for a worker.
+     */
+    private class Queued {
+        /** Event, replaced by a newer event of the same key when the events are coalesced. */
+        private CacheEntryEvent<? extends K, ? extends V> event;
+
+        /** Arrival time of the first event, in nanoseconds. */
+        private final long arrivalTime;
+
+        /** */
+        Queued(CacheEntryEvent<? extends K, ? extends V> event, long arrivalTime) {
+            this.event = event;
+            this.arrivalTime = arrivalTime;
+        }
+    }
+
+    /**
+     * Bounded queue of the events of a worker.
+     */
+    private class Stripe {
+        /** */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /** */
+        private final Condition notEmpty = lock.newCondition();
+
+        /** */
+        private final Condition notFull = lock.newCondition();
+
+        /** Events in the arrival order. */
+        private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+
+        /** Queued events by key, used only to coalesce the events. */
+        private final Map<K, Queued> byKey = new HashMap<>();
+
+        /** Capacity. */
+        private final int capacity;
+
+        /** Maximum observed size. */
+        private volatile int maxSize;
+
+        /** Whether no more events are accepted. */
+        private boolean closed;
+
+        /** */
+        Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Queues an event according to the overflow policy. An event offered after the stripe is closed is dropped,
+         * since the worker may have already exited.
+         */
+        void offer(CacheEntryEvent<? extends K, ? extends V> event, long arrivalTime) {
+            lock.lock();
+
+            try {
+                if (closed) {
+                    dropped.increment();
+
+                    return;
+                }
+
+                if (policy == OverflowPolicy.COALESCE) {
+                    Queued queued = byKey.get(event.getKey());
+
+                    if (queued != null) {
+                        queued.event = event;
+
+                        coalesced.increment();
+
+                        return;
+                    }
+                }
+
+                while (queue.size() >= capacity) {
+                    if (policy == OverflowPolicy.DROP_OLDEST) {
+                        queue.poll();
+
+                        dropped.increment();
+                    }
+                    else {
+                        notFull.awaitUninterruptibly();
+
+                        if (closed) {
+                            dropped.increment();
+
+                            return;
+                        }
+                    }
+                }
+
+                Queued queued = new Queued(event, arrivalTime);
+
+                queue.add(queued);
+
+                if (policy == OverflowPolicy.COALESCE)
+                    byKey.put(event.getKey(), queued);
+
+                if (queue.size() > maxSize)
+                    maxSize = queue.size();
+
+                notEmpty.signal();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return Next event or {@code null} if the stripe is closed and empty.
+         */
+        Queued take() {
+            lock.lock();
+
+            try {
+                while (queue.isEmpty()) {
+                    if (closed)
+                        return null;
+
+                    notEmpty.awaitUninterruptibly();
+                }
+
+                Queued queued = queue.poll();
+
+                if (policy == OverflowPolicy.COALESCE)
+                    byKey.remove(queued.event.getKey());
+
+                notFull.signal();
+
+                return queued;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /** */
+        int size() {
+            lock.lock();
+
+            try {
+                return queue.size();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /** */
+        void close() {
+            lock.lock();
+
+            try {
+                closed = true;
+
+                notEmpty.signalAll();
+                notFull.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.listeners;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import javax.cache.event.CacheEntryEvent;
+import org.apache.ignite.binary.BinaryObject;
+import org.gridgain.examples.processors.BinaryFields;
+
+/**
+ * Population change of a city, the payload of the notifications that carry only the changed data rather than the
+ * whole city.
+ *
+ * The change travels as a byte array of the city ID, the country code and the two populations. A byte array needs
+ * no class on the receiving side and takes 16 bytes for a three-letter country code, while the key and the old and
+ * new values of a city take about 170 bytes.
+ */
+public class PopulationChange {
+    /** City ID. */
+    private final int cityId;
+
+    /** Country code. */
+    private final String countryCode;
+
+    /** Population before the change. */
+    private final int oldPopulation;
+
+    /** Population after the change. */
+    private final int newPopulation;
+
+    /**
+     * @param cityId City ID.
+     * @param countryCode Country code.
+     * @param oldPopulation Population before the change.
+     * @param newPopulation Population after the change.
+     */
+    public PopulationChange(int cityId, String countryCode, int oldPopulation, int newPopulation) {
+        this.cityId = cityId;
+        this.countryCode = countryCode;
+        this.oldPopulation = oldPopulation;
+        this.newPopulation = newPopulation;
+    }
+
+    /**
+     * Encodes the population change of a city.
+     *
+     * @param e Update of the City cache received with the binary key and value.
+     * @return Encoded change.
+     */
+    public static byte[] encode(CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e) {
+        byte[] code = BinaryFields.<String>value(e.getKey(), "countrycode").getBytes(StandardCharsets.US_ASCII);
+
+        ByteBuffer buf = ByteBuffer.allocate(13 + code.length);
+
+        buf.putInt(BinaryFields.<Integer>value(e.getKey(), "id"));
+        buf.put((byte)code.length);
+        buf.put(code);
+        buf.putInt(e.getOldValue() == null ? 0 : BinaryFields.<Integer>value(e.getOldValue(), "population"));
+        buf.putInt(e.getValue() == null ? 0 : BinaryFields.<Integer>value(e.getValue(), "population"));
+
+        return buf.array();
+    }
+
+    /**
+     * @param bytes Change encoded with {@link #encode}.
+     * @return Decoded change.
+     */
+    public static PopulationChange decode(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+
+        int cityId = buf.getInt();
+
+        byte[] code = new byte[buf.get()];
+
+        buf.get(code);
+
+        return new PopulationChange(cityId, new String(code, StandardCharsets.US_ASCII), buf.getInt(), buf.getInt());
+    }
+
+    public int getCityId() {
+        return cityId;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public int getOldPopulation() {
+        return oldPopulation;
+    }
+
+    public int getNewPopulation() {
+        return newPopulation;
+    }
+
+    @Override public String toString() {
+        return "PopulationChange{" +
+            "cityId=" + cityId +
+            ", countryCode='" + countryCode + '\'' +
+            ", oldPopulation=" + oldPopulation +
+            ", newPopulation=" + newPopulation +
+            '}';
+    }
+}
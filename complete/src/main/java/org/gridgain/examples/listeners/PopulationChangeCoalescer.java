@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.listeners;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.apache.ignite.cache.query.ContinuousQueryWithTransformer;
+import org.gridgain.examples.model.CityKey;
+
+/**
+ * Local listener of a continuous query with {@link PopulationChange} payloads that passes at most one change per
+ * city per time window to the consumer.
+ *
+ * The changes of a city received within a window are merged into one change that goes from the population before
+ * the first change to the population after the last one. At the end of the window the merged changes are passed to
+ * the consumer in the order the cities have first changed. A consumer that needs only the current population of the
+ * cities receives a change of a hot city once per window rather than on every update, at the cost of a delay of up to
+ * one window.
+ *
+ * The changes of a city are delivered in order, so the last change passed to the consumer for a city always has its
+ * latest population.
+ */
+public class PopulationChangeCoalescer implements ContinuousQueryWithTransformer.EventListener<byte[]>, AutoCloseable {
+    /** Consumer of the merged changes. */
+    private final Consumer<PopulationChange> consumer;
+
+    /** Executor of the periodic flushes, {@code null} if every change is passed to the consumer immediately. */
+    private final ScheduledExecutorService flusher;
+
+    /** Serializes the flushes, so the changes of a city reach the consumer in order. */
+    private final Object flushLock = new Object();
+
+    /** Merged changes of the current window in the order of the first change of a city. */
+    private Map<CityKey, PopulationChange> pending = new LinkedHashMap<>();
+
+    /** Number of received changes. */
+    private final LongAdder received = new LongAdder();
+
+    /** Number of changes processed by the consumer. */
+    private final LongAdder emitted = new LongAdder();
+
+    /** Number of changes the consumer has failed to process. */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * @param consumer Consumer of the merged changes, called by the flushes or, with no window, by the threads that
+     *     deliver the notifications.
+     * @param windowMillis Window length in milliseconds, 0 to pass every change to the consumer immediately.
+     */
+    public PopulationChangeCoalescer(Consumer<PopulationChange> consumer, long windowMillis) {
+        this.consumer = consumer;
+
+        if (windowMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "population-change-coalescer");
+
+                t.setDaemon(true);
+
+                return t;
+            });
+
+            flusher.scheduleAtFixedRate(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        else
+            flusher = null;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onUpdated(Iterable<? extends byte[]> events) {
+        for (byte[] bytes : events) {
+            PopulationChange change = PopulationChange.decode(bytes);
+
+            received.increment();
+
+            if (flusher == null) {
+                emit(change);
+
+                continue;
+            }
+
+            synchronized (this) {
+                pending.merge(new CityKey(change.getCityId(), change.getCountryCode()), change,
+                    (first, last) -> new PopulationChange(first.getCityId(), first.getCountryCode(),
+                        first.getOldPopulation(), last.getNewPopulation()));
+            }
+        }
+    }
+
+    /**
+     * Passes the merged changes of the current window to the consumer.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<CityKey, PopulationChange> changes;
+
+            synchronized (this) {
+                if (pending.isEmpty())
+                    return;
+
+                changes = pending;
+
+                pending = new LinkedHashMap<>();
+            }
+
+            for (PopulationChange change : changes.values())
+                emit(change);
+        }
+    }
+
+    /** */
+    private void emit(PopulationChange change) {
+        try {
+            consumer.accept(change);
+
+            emitted.increment();
+        }
+        catch (RuntimeException e) {
+            failed.increment();
+
+            System.err.println("Failed to process a population change [change=" + change + ", err=" + e + ']');
+        }
+    }
+
+    /**
+     * @return Number of received changes.
+     */
+    public long received() {
+        return received.sum();
+    }
+
+    /**
+     * @return Number of changes processed by the consumer, not including the failed ones.
+     */
+    public long emitted() {
+        return emitted.sum();
+    }
+
+    /**
+     * @return Number of changes the consumer has failed to process.
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * Stops the periodic flushes and passes the pending changes to the consumer.
+     */
+    @Override public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flush();
+    }
+
+    @Override public String toString() {
+        return "PopulationChangeCoalescer [received=" + received() + ", emitted=" + emitted() + ", failed=" +
+            failed() + ']';
+    }
+}
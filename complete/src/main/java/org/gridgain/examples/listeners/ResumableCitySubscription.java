@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.listeners;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.cache.Cache;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.EventType;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.affinity.Affinity;
+import org.apache.ignite.cache.query.CacheQueryEntryEvent;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.events.Event;
+import org.apache.ignite.lang.IgnitePredicate;
+import org.gridgain.examples.compute.PartitionUpdateCounters;
+import org.gridgain.examples.model.CityKey;
+
+/**
+ * Local copy of the City cache kept up to date with a continuous query that survives a loss of the connection to
+ * the cluster without reloading all the cities.
+ *
+ * The notifications sent while the application is disconnected are lost. For every partition the subscription
+ * remembers the update counter of the latest change it has seen. When the connection is restored, the subscription
+ * registers the continuous query again, reads the current counters of the partitions and reloads only the
+ * partitions whose counters have moved. The changes received during the reload are buffered and applied after it,
+ * the same way as when the subscription starts: a change carries the whole city, so applying a change that the
+ * reloaded data already reflects does no harm.
+ *
+ * The subscription resumes automatically when the client node reconnects to the cluster, {@link #suspend} and
+ * {@link #resume} do the same on request.
+ *
+ * A partition is reloaded rather than replaying the individual changes: the changes would have to be recorded by
+ * the server nodes, which get the application classes only through peer class loading and can't run the recording
+ * code once the application has left. Reloading a partition costs a scan of a single partition, and partitions that
+ * haven't changed aren't read at all. That helps only if most partitions haven't changed: after a rolling restart
+ * under load the counters of almost all the partitions move, and resuming costs about as much as a full reload.
+ */
+public class ResumableCitySubscription implements AutoCloseable {
+    /** Ignite instance. */
+    private final Ignite ignite;
+
+    /** City cache. */
+    private final IgniteCache<BinaryObject, BinaryObject> cityCache;
+
+    /** City cache affinity. */
+    private final Affinity<Object> affinity;
+
+    /** Cities by partition and key. */
+    private final Map<Integer, Map<BinaryObject, BinaryObject>> cities = new HashMap<>();
+
+    /** Update counter of the latest change seen by partition, -1 if the partition has to be reloaded. */
+    private final long[] counters;
+
+    /** Resumes the subscription on reconnection. */
+    private final IgnitePredicate<Event> reconnectLsnr;
+
+    /** Executor of the resumptions, they must not block the thread that notifies about the reconnection. */
+    private final ExecutorService resumer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "city-subscription-resumer");
+
+        t.setDaemon(true);
+
+        return t;
+    });
+
+    /** Serializes the resumptions. */
+    private final Object resumeLock = new Object();
+
+    /** Changes received while the partitions are reloaded, {@code null} when the subscription is live. */
+    private List<CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject>> buffered;
+
+    /** Cursor of the continuous query, {@code null} if the subscription is suspended. */
+    private QueryCursor<?> cursor;
+
+    /** Number of the partitions reloaded by the latest (re)subscription. */
+    private int reloadedPartitions;
+
+    /** Number of the cities read by the latest (re)subscription. */
+    private int reloadedCities;
+
+    /** Number of the applied changes. */
+    private long changes;
+
+    /**
+     * Loads the cities and subscribes for their changes.
+     *
+     * @param ignite Ignite instance.
+     */
+    public ResumableCitySubscription(Ignite ignite) {
+        this.ignite = ignite;
+
+        cityCache = ignite.cache("City").withKeepBinary();
+        affinity = ignite.affinity("City");
+
+        counters = new long[affinity.partitions()];
+
+        Arrays.fill(counters, -1);
+
+        reconnectLsnr = evt -> {
+            resumer.submit(() -> {
+                try {
+                    resume();
+                }
+                catch (RuntimeException e) {
+                    System.err.println("Failed to resume the subscription for the cities: " + e);
+                }
+            });
+
+            return true;
+        };
+
+        ignite.events().localListen(reconnectLsnr, org.apache.ignite.events.EventType.EVT_CLIENT_NODE_RECONNECTED);
+
+        resume();
+    }
+
+    /**
+     * Stops receiving the changes, as if the connection to the cluster has been lost.
+     */
+    public void suspend() {
+        QueryCursor<?> cur;
+
+        synchronized (this) {
+            cur = cursor;
+
+            cursor = null;
+        }
+
+        // Closed without the lock, the listener may be waiting for it.
+        if (cur != null)
+            cur.close();
+    }
+
+    /**
+     * Subscribes for the changes again and reloads the partitions that have changed since the latest change seen.
+     */
+    public void resume() {
+        synchronized (resumeLock) {
+            resume0();
+        }
+    }
+
+    /** */
+    private void resume0() {
+        ContinuousQuery<BinaryObject, BinaryObject> query = new ContinuousQuery<>();
+
+        query.setLocalListener(this::onUpdated);
+
+        suspend();
+
+        synchronized (this) {
+            buffered = new ArrayList<>();
+        }
+
+        QueryCursor<?> cur = cityCache.query(query);
+
+        synchronized (this) {
+            cursor = cur;
+        }
+
+        // Read after the query is registered, so a change that isn't reflected by the counters is received.
+        long[] current = PartitionUpdateCounters.collect(ignite, "City");
+
+        int parts = 0;
+        int cnt = 0;
+
+        for (int part = 0; part < current.length; part++) {
+            long seen;
+
+            synchronized (this) {
+                seen = counters[part];
+            }
+
+            // A lower counter means that the partition has been lost or the cluster has been restarted.
+            if (current[part] >= 0 && current[part] == seen)
+                continue;
+
+            Map<BinaryObject, BinaryObject> partCities = new HashMap<>();
+
+            try (QueryCursor<Cache.Entry<BinaryObject, BinaryObject>> scan = cityCache.query(
+                new ScanQuery<BinaryObject, BinaryObject>(part))) {
+                for (Cache.Entry<BinaryObject, BinaryObject> e : scan)
+                    partCities.put(e.getKey(), e.getValue());
+            }
+
+            synchronized (this) {
+                cities.put(part, partCities);
+
+                counters[part] = Math.max(current[part], 0);
+            }
+
+            parts++;
+            cnt += partCities.size();
+        }
+
+        synchronized (this) {
+            for (CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e : buffered)
+                apply(e);
+
+            buffered = null;
+
+            reloadedPartitions = parts;
+            reloadedCities = cnt;
+        }
+    }
+
+    /** */
+    private synchronized void onUpdated(
+        Iterable<CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject>> events) {
+        for (CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e : events) {
+            if (buffered != null)
+                buffered.add(e);
+            else
+                apply(e);
+        }
+    }
+
+    /**
+     * Applies a change of a city and remembers its update counter.
+     */
+    private void apply(CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e) {
+        int part = affinity.partition(e.getKey());
+
+        Map<BinaryObject, BinaryObject> partCities = cities.computeIfAbsent(part, p -> new HashMap<>());
+
+        if (e.getEventType() == EventType.REMOVED || e.getEventType() == EventType.EXPIRED)
+            partCities.remove(e.getKey());
+        else
+            partCities.put(e.getKey(), e.getValue());
+
+        long cntr = ((CacheQueryEntryEvent<?, ?>)e).getPartitionUpdateCounter();
+
+        counters[part] = Math.max(counters[part], cntr);
+
+        changes++;
+    }
+
+    /**
+     * @param key City key.
+     * @return City or {@code null} if there is no such city.
+     */
+    public synchronized BinaryObject get(CityKey key) {
+        BinaryObject binKey = ignite.binary().toBinary(key);
+
+        Map<BinaryObject, BinaryObject> partCities = cities.get(affinity.partition(binKey));
+
+        return partCities == null ? null : partCities.get(binKey);
+    }
+
+    /**
+     * @return Number of the cities.
+     */
+    public synchronized int size() {
+        int size = 0;
+
+        for (Map<BinaryObject, BinaryObject> partCities : cities.values())
+            size += partCities.size();
+
+        return size;
+    }
+
+    /**
+     * @return Number of the partitions reloaded by the latest (re)subscription.
+     */
+    public synchronized int reloadedPartitions() {
+        return reloadedPartitions;
+    }
+
+    /**
+     * @return Number of the cities read by the latest (re)subscription.
+     */
+    public synchronized int reloadedCities() {
+        return reloadedCities;
+    }
+
+    /**
+     * @return Number of the applied changes.
+     */
+    public synchronized long changes() {
+        return changes;
+    }
+
+    /**
+     * Stops receiving the changes.
+     */
+    @Override public void close() {
+        ignite.events().stopLocalListen(reconnectLsnr, org.apache.ignite.events.EventType.EVT_CLIENT_NODE_RECONNECTED);
+
+        resumer.shutdownNow();
+
+        suspend();
+    }
+
+    @Override public synchronized String toString() {
+        return "ResumableCitySubscription [cities=" + size() + ", partitions=" + counters.length +
+            ", reloadedPartitions=" + reloadedPartitions + ", reloadedCities=" + reloadedCities +
+            ", changes=" + changes + ']';
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.loader;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Prints the number of loaded rows and the loading rate once a second.
+ */
+public class ProgressReporter implements AutoCloseable {
+    /** Source of the number of loaded rows. */
+    private final LongSupplier rows;
+
+    /** Reporting thread. */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    /** Start time. */
+    private final long start = System.nanoTime();
+
+    /** Rows reported last time. */
+    private long prevRows;
+
+    /**
+     * @param rows Source of the number of loaded rows.
+     */
+    public ProgressReporter(LongSupplier rows) {
+        this.rows = rows;
+
+        executor.scheduleAtFixedRate(this::report, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /** */
+    private void report() {
+        long rows = this.rows.getAsLong();
+
+        System.out.println("Loading [rows=" + rows + ", rowsPerSec=" + (rows - prevRows) + ']');
+
+        prevRows = rows;
+    }
+
+    /**
+     * Stops reporting and prints the totals.
+     *
+     * @param what What has been loaded.
+     */
+    public void finish(String what) {
+        executor.shutdownNow();
+
+        long rows = this.rows.getAsLong();
+
+        double secs = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("Loaded " + what + " [rows=" + rows + ", time=" + String.format("%.2f", secs) +
+            "s, rowsPerSec=" + (long)(rows / secs) + ']');
+    }
+
+    /** {@inheritDoc} */
+    @Override public void close() {
+        executor.shutdownNow();
+    }
+}
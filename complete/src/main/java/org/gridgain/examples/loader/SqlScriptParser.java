@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.loader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal parser for SQL scripts like `scripts/ignite_world.sql`. It splits the script into statements and
+ * parses single-row <code>INSERT INTO Table(col, ...) VALUES (val, ...)</code> statements into column/value arrays,
+ * so that the data can be loaded with key-value APIs instead of being executed statement by statement.
+ */
+public class SqlScriptParser {
+    /** Statements source. */
+    private final BufferedReader reader;
+
+    /** Buffer for statements that span several lines. */
+    private final StringBuilder buf = new StringBuilder();
+
+    /**
+     * @param reader Script source.
+     */
+    public SqlScriptParser(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next statement from the script.
+     *
+     * @return Statement text without the trailing semicolon or {@code null} if the end of the script is reached.
+     * @throws IOException If failed to read the script.
+     */
+    public String nextStatement() throws IOException {
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+
+            if (buf.length() == 0) {
+                if (line.isEmpty() || line.startsWith("--"))
+                    continue;
+
+                // Fast path for single-line statements which is the case for all the INSERTs of the script.
+                if (line.endsWith(";") && isComplete(line))
+                    return line.substring(0, line.length() - 1);
+            }
+
+            buf.append(line).append('\n');
+
+            if (line.endsWith(";") && isComplete(buf)) {
+                String stmt = buf.substring(0, buf.lastIndexOf(";"));
+
+                buf.setLength(0);
+
+                return stmt.trim();
+            }
+        }
+
+        if (buf.length() == 0)
+            return null;
+
+        String stmt = buf.toString().trim();
+
+        buf.setLength(0);
+
+        return stmt;
+    }
+
+    /**
+     * @param stmt Statement text.
+     * @return {@code true} if all the string literals of the statement are closed.
+     */
+    private static boolean isComplete(CharSequence stmt) {
+        boolean inQuote = false;
+
+        for (int i = 0; i < stmt.length(); i++) {
+            if (stmt.charAt(i) == '\'')
+                inQuote = !inQuote;
+        }
+
+        return !inQuote;
+    }
+
+    /**
+     * @param stmt Statement text.
+     * @return {@code true} if the statement is an INSERT.
+     */
+    public static boolean isInsert(String stmt) {
+        return stmt.regionMatches(true, 0, "INSERT", 0, 6);
+    }
+
+    /**
+     * Parses a single-row INSERT statement.
+     *
+     * @param stmt Statement text.
+     * @return Parsed statement.
+     */
+    public static Insert parseInsert(String stmt) {
+        int tableStart = indexOfIgnoreCase(stmt, "INTO") + 4;
+        int colsStart = stmt.indexOf('(', tableStart);
+        int colsEnd = stmt.indexOf(')', colsStart);
+        int valsStart = stmt.indexOf('(', indexOfIgnoreCase(stmt, "VALUES"));
+        int valsEnd = stmt.lastIndexOf(')');
+
+        if (tableStart < 4 || colsStart < 0 || colsEnd < 0 || valsStart < 0 || valsEnd < valsStart)
+            throw new IllegalArgumentException("Unsupported INSERT statement: " + stmt);
+
+        String table = stmt.substring(tableStart, colsStart).trim();
+
+        String[] columns = stmt.substring(colsStart + 1, colsEnd).split(",");
+
+        for (int i = 0; i < columns.length; i++)
+            columns[i] = columns[i].trim();
+
+        Object[] values = parseValues(stmt, valsStart + 1, valsEnd);
+
+        if (values.length != columns.length)
+            throw new IllegalArgumentException("Columns and values don't match: " + stmt);
+
+        return new Insert(table, columns, values);
+    }
+
+    /**
+     * Parses the list of literals. String literals are returned unquoted, NULLs as {@code null} and
+     * all other literals as their text representation.
+     */
+    private static Object[] parseValues(String stmt, int from, int to) {
+        List<Object> values = new ArrayList<>();
+
+        StringBuilder val = new StringBuilder();
+
+        int i = from;
+
+        while (i < to) {
+            char c = stmt.charAt(i);
+
+            if (c == ' ') {
+                i++;
+
+                continue;
+            }
+
+            if (c == '\'') {
+                val.setLength(0);
+
+                i++;
+
+                while (i < to) {
+                    c = stmt.charAt(i);
+
+                    if (c == '\'') {
+                        // Escaped quote.
+                        if (i + 1 < to && stmt.charAt(i + 1) == '\'') {
+                            val.append('\'');
+
+                            i += 2;
+
+                            continue;
+                        }
+
+                        break;
+                    }
+
+                    val.append(c);
+
+                    i++;
+                }
+
+                values.add(val.toString());
+
+                // Skipping the closing quote and everything up to the separator.
+                i = skipSeparator(stmt, i + 1, to);
+            }
+            else {
+                int end = stmt.indexOf(',', i);
+
+                if (end < 0 || end > to)
+                    end = to;
+
+                String literal = stmt.substring(i, end).trim();
+
+                values.add("NULL".equalsIgnoreCase(literal) ? null : literal);
+
+                i = end + 1;
+            }
+        }
+
+        return values.toArray();
+    }
+
+    /** */
+    private static int skipSeparator(String stmt, int from, int to) {
+        int end = stmt.indexOf(',', from);
+
+        return end < 0 || end > to ? to : end + 1;
+    }
+
+    /** */
+    private static int indexOfIgnoreCase(String str, String substr) {
+        for (int i = 0; i <= str.length() - substr.length(); i++) {
+            if (str.regionMatches(true, i, substr, 0, substr.length()))
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Parsed single-row INSERT statement.
+     */
+    public static class Insert {
+        /** Table name as it's written in the statement. */
+        private final String table;
+
+        /** Column names. */
+        private final String[] columns;
+
+        /** Values in the textual form, {@code null} for NULL. */
+        private final Object[] values;
+
+        /** */
+        Insert(String table, String[] columns, Object[] values) {
+            this.table = table;
+            this.columns = columns;
+            this.values = values;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String[] getColumns() {
+            return columns;
+        }
+
+        public Object[] getValues() {
+            return values;
+        }
+    }
+}
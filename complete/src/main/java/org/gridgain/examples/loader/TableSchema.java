@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.loader;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteBinary;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.apache.ignite.cache.QueryEntity;
+import org.apache.ignite.configuration.CacheConfiguration;
+
+/**
+ * Binary layout of a table created with <code>CREATE TABLE</code>. The layout is taken from the {@link QueryEntity}
+ * of the table's cache, so that the key and value objects built here are exactly the same as the ones created by
+ * SQL INSERTs. This works for the tables with custom <code>KEY_TYPE</code> and <code>VALUE_TYPE</code> like `City`
+ * as well as for the tables with auto-generated types like `CountryLanguage`.
+ */
+public class TableSchema {
+    /** Cache name. */
+    private final String cacheName;
+
+    /** SQL table name. */
+    private final String tableName;
+
+    /** Binary type name of the key, used only for composite keys. */
+    private final String keyType;
+
+    /** Binary type name of the value. */
+    private final String valueType;
+
+    /** Name of the only key field or {@code null} for composite keys. */
+    private final String keyFieldName;
+
+    /** Fields of the composite key. */
+    private final Set<String> keyFields;
+
+    /** All the fields of the table in the SQL order mapped to their Java types. */
+    private final Map<String, String> fields;
+
+    /** Java classes of the fields, used for typed NULLs. */
+    private final Map<String, Class<Object>> fieldClasses = new HashMap<>();
+
+    /** Binary facade. */
+    private final IgniteBinary binary;
+
+    /** */
+    private TableSchema(String cacheName, QueryEntity entity, IgniteBinary binary) {
+        this.cacheName = cacheName;
+        this.tableName = entity.getTableName();
+        this.keyType = entity.getKeyType();
+        this.valueType = entity.getValueType();
+        this.binary = binary;
+
+        fields = new LinkedHashMap<>(entity.getFields());
+
+        for (Map.Entry<String, String> field : fields.entrySet())
+            fieldClasses.put(field.getKey(), fieldClass(field.getValue()));
+
+        Set<String> keyFields = entity.getKeyFields();
+
+        if (keyFields == null || keyFields.isEmpty()) {
+            this.keyFieldName = entity.getKeyFieldName();
+            this.keyFields = Collections.emptySet();
+        }
+        else {
+            this.keyFieldName = null;
+            this.keyFields = keyFields;
+        }
+    }
+
+    /**
+     * Resolves the layout of a cache created with <code>CREATE TABLE</code>.
+     *
+     * @param ignite Ignite instance.
+     * @param cacheName Cache name.
+     * @return Table layout or {@code null} if the cache doesn't exist or is not an SQL table.
+     */
+    @SuppressWarnings("unchecked")
+    public static TableSchema forCache(Ignite ignite, String cacheName) {
+        if (ignite.cache(cacheName) == null)
+            return null;
+
+        CacheConfiguration<?, ?> cfg = ignite.cache(cacheName).getConfiguration(CacheConfiguration.class);
+
+        if (cfg.getQueryEntities().isEmpty())
+            return null;
+
+        return new TableSchema(cacheName, cfg.getQueryEntities().iterator().next(), ignite.binary());
+    }
+
+    /**
+     * Finds the cache that stores a table.
+     *
+     * @param ignite Ignite instance.
+     * @param table Table name in any case.
+     * @return Table layout or {@code null} if there is no such table.
+     */
+    public static TableSchema forTable(Ignite ignite, String table) {
+        for (String cacheName : ignite.cacheNames()) {
+            TableSchema schema = forCache(ignite, cacheName);
+
+            if (schema != null && schema.tableName.equalsIgnoreCase(table))
+                return schema;
+        }
+
+        return null;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Resolves the table fields of the given columns. Unquoted SQL identifiers are stored
+     * upper-cased, thus the columns are matched ignoring case.
+     *
+     * @param columns Column names.
+     * @return Field names in the order of the columns.
+     */
+    public String[] fieldNames(String[] columns) {
+        String[] names = new String[columns.length];
+
+        for (int i = 0; i < columns.length; i++) {
+            for (String field : fields.keySet()) {
+                if (field.equalsIgnoreCase(columns[i])) {
+                    names[i] = field;
+
+                    break;
+                }
+            }
+
+            if (names[i] == null)
+                throw new IllegalArgumentException("Unknown column [table=" + tableName + ", column=" + columns[i] + ']');
+        }
+
+        return names;
+    }
+
+    /**
+     * Builds the key of a row.
+     *
+     * @param fieldNames Field names returned by {@link #fieldNames(String[])}.
+     * @param values Row values, either literals or values of the field types.
+     * @return Key object.
+     */
+    public Object key(String[] fieldNames, Object[] values) {
+        if (keyFieldName != null) {
+            for (int i = 0; i < fieldNames.length; i++) {
+                if (fieldNames[i].equals(keyFieldName))
+                    return convert(values[i], fields.get(keyFieldName));
+            }
+
+            throw new IllegalArgumentException("No key field in the row [table=" + tableName + ']');
+        }
+
+        BinaryObjectBuilder builder = binary.builder(keyType);
+
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (keyFields.contains(fieldNames[i]))
+                builder.setField(fieldNames[i], convert(values[i], fields.get(fieldNames[i])));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Builds the value of a row. Key fields are not stored in the value, the same way SQL does.
+     *
+     * @param fieldNames Field names returned by {@link #fieldNames(String[])}.
+     * @param values Row values, either literals or values of the field types.
+     * @return Value object.
+     */
+    public BinaryObject value(String[] fieldNames, Object[] values) {
+        BinaryObjectBuilder builder = binary.builder(valueType);
+
+        for (int i = 0; i < fieldNames.length; i++) {
+            String name = fieldNames[i];
+
+            if (keyFields.contains(name) || name.equals(keyFieldName))
+                continue;
+
+            // Typed null, so that the field metadata is the same as for SQL INSERTs.
+            builder.setField(name, convert(values[i], fields.get(name)), fieldClasses.get(name));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Converts a literal to the Java type of a field. Values of other types are returned as is.
+     */
+    private static Object convert(Object val, String type) {
+        if (!(val instanceof String) || String.class.getName().equals(type))
+            return val;
+
+        String literal = (String)val;
+
+        switch (type) {
+            case "java.lang.Integer":
+                return Integer.valueOf(literal);
+
+            case "java.lang.Long":
+                return Long.valueOf(literal);
+
+            case "java.lang.Short":
+                return Short.valueOf(literal);
+
+            case "java.lang.Double":
+                return Double.valueOf(literal);
+
+            case "java.math.BigDecimal":
+                return new BigDecimal(literal);
+
+            default:
+                throw new IllegalArgumentException("Unsupported field type: " + type);
+        }
+    }
+
+    /** */
+    @SuppressWarnings("unchecked")
+    private static Class<Object> fieldClass(String type) {
+        try {
+            return (Class<Object>)Class.forName(type);
+        }
+        catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unsupported field type: " + type, e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.loader;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteDataStreamer;
+
+/**
+ * Streams rows of a single table into its cache with {@link IgniteDataStreamer}. The streamer is thread-safe,
+ * so a single instance is shared by all the loading threads. It groups the entries by their primary nodes and
+ * sends a batch to a node once the per-node buffer is full.
+ */
+public class TableStreamer implements AutoCloseable {
+    /** Default number of entries buffered for a node before they are sent. */
+    public static final int DFLT_PER_NODE_BUFFER_SIZE = 1024;
+
+    /** Default number of concurrent batches in flight per node. */
+    public static final int DFLT_PER_NODE_PARALLEL_OPS = 16;
+
+    /** Table layout. */
+    private final TableSchema schema;
+
+    /** Streamer of the table cache. */
+    private final IgniteDataStreamer<Object, Object> streamer;
+
+    /** Number of rows added to the streamer. */
+    private final LongAdder rows = new LongAdder();
+
+    /**
+     * @param ignite Ignite instance.
+     * @param schema Table layout.
+     * @param allowOverwrite Whether existing entries are overwritten. If {@code false} the streamer skips the
+     * entries that already exist in the cache, which is faster but works well only for the initial load.
+     * @param perNodeBufferSize Number of entries buffered for a node before they are sent.
+     * @param perNodeParallelOps Number of concurrent batches in flight per node.
+     */
+    public TableStreamer(Ignite ignite, TableSchema schema, boolean allowOverwrite, int perNodeBufferSize,
+        int perNodeParallelOps) {
+        this.schema = schema;
+
+        streamer = ignite.dataStreamer(schema.getCacheName());
+
+        streamer.keepBinary(true);
+        streamer.allowOverwrite(allowOverwrite);
+        streamer.perNodeBufferSize(perNodeBufferSize);
+        streamer.perNodeParallelOperations(perNodeParallelOps);
+    }
+
+    /**
+     * Creates a streamer configured with <code>loader.allowOverwrite</code>, <code>loader.perNodeBufferSize</code>
+     * and <code>loader.perNodeParallelOps</code> system properties.
+     *
+     * @param ignite Ignite instance.
+     * @param schema Table layout.
+     * @return Streamer.
+     */
+    public static TableStreamer fromSystemProperties(Ignite ignite, TableSchema schema) {
+        return new TableStreamer(ignite, schema,
+            Boolean.getBoolean("loader.allowOverwrite"),
+            Integer.getInteger("loader.perNodeBufferSize", DFLT_PER_NODE_BUFFER_SIZE),
+            Integer.getInteger("loader.perNodeParallelOps", DFLT_PER_NODE_PARALLEL_OPS));
+    }
+
+    public TableSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Adds a row to the streamer. The call blocks if there are too many batches in flight for the row's node.
+     *
+     * @param fieldNames Field names returned by {@link TableSchema#fieldNames(String[])}.
+     * @param values Row values.
+     */
+    public void addRow(String[] fieldNames, Object[] values) {
+        streamer.addData(schema.key(fieldNames, values), schema.value(fieldNames, values));
+
+        rows.increment();
+    }
+
+    /**
+     * @return Number of rows added so far.
+     */
+    public long rows() {
+        return rows.sum();
+    }
+
+    /**
+     * Sends all the buffered rows and waits for the acknowledgements.
+     */
+    public void flush() {
+        streamer.flush();
+    }
+
+    /** {@inheritDoc} */
+    @Override public void close() {
+        streamer.close();
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.loader;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Deterministic generator of the World database records. The same seed and sizes always produce the same rows,
+ * no matter how many threads generate them, because every value is derived from the seed and the row number only.
+ *
+ * Cities are distributed across countries by a Zipf law, so that a few countries own most of the cities like
+ * CHN and IND do in the real dataset. With the default skew of 1.0 the top country owns ~1/ln(countries) of all
+ * the cities, which reproduces partition hot-spotting on the country code affinity key.
+ */
+public class WorldDataGenerator {
+    /** Columns of the generated City rows. */
+    public static final String[] CITY_COLUMNS = {"ID", "Name", "CountryCode", "District", "Population"};
+
+    /** Columns of the generated Country rows. */
+    public static final String[] COUNTRY_COLUMNS = {"Code", "Name", "Continent", "Region", "SurfaceArea",
+        "Population", "LifeExpectancy", "HeadOfState", "Capital", "Code2"};
+
+    /** Columns of the generated CountryLanguage rows. */
+    public static final String[] LANGUAGE_COLUMNS = {"CountryCode", "Language", "IsOfficial", "Percentage"};
+
+    /** Real countries with the largest number of cities, they take the top ranks of the distribution. */
+    private static final String[] TOP_COUNTRIES = {"CHN", "IND", "USA", "BRA", "JPN", "RUS", "MEX", "PHL", "DEU",
+        "IDN", "GBR", "KOR", "IRN", "NGA", "TUR", "PAK", "ESP", "ITA", "UKR", "ARG"};
+
+    /** */
+    private static final String[] CONTINENTS = {"Asia", "Europe", "North America", "Africa", "Oceania",
+        "South America"};
+
+    /** Maximum number of countries, limited by the number of three-letter codes. */
+    public static final int MAX_COUNTRIES = 26 * 26 * 26;
+
+    /** Maximum number of cities, limited by the INT type of the City ID column. */
+    public static final long MAX_CITIES = Integer.MAX_VALUE;
+
+    /** Seed. */
+    private final long seed;
+
+    /** Number of cities. */
+    private final long cities;
+
+    /** Number of languages per country. */
+    private final int languagesPerCountry;
+
+    /** Country codes by rank. */
+    private final String[] codes;
+
+    /** Cumulative Zipf distribution of the cities across the countries. */
+    private final double[] cdf;
+
+    /**
+     * @param seed Seed.
+     * @param countries Number of countries.
+     * @param cities Number of cities.
+     * @param languagesPerCountry Number of languages per country.
+     * @param skew Zipf exponent, 0 for the uniform distribution.
+     */
+    public WorldDataGenerator(long seed, int countries, long cities, int languagesPerCountry, double skew) {
+        if (countries <= 0 || countries > MAX_COUNTRIES)
+            throw new IllegalArgumentException("Number of countries must be in [1, " + MAX_COUNTRIES + "]");
+
+        if (cities < 0 || cities > MAX_CITIES)
+            throw new IllegalArgumentException("Number of cities must be in [0, " + MAX_CITIES + "]");
+
+        this.seed = seed;
+        this.cities = cities;
+        this.languagesPerCountry = languagesPerCountry;
+
+        codes = countryCodes(countries);
+
+        cdf = new double[countries];
+
+        double sum = 0;
+
+        for (int i = 0; i < countries; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+
+            cdf[i] = sum;
+        }
+
+        for (int i = 0; i < countries; i++)
+            cdf[i] /= sum;
+    }
+
+    /**
+     * @return Number of countries.
+     */
+    public int countries() {
+        return codes.length;
+    }
+
+    /**
+     * @return Number of cities.
+     */
+    public long cities() {
+        return cities;
+    }
+
+    /**
+     * @return Number of languages per country.
+     */
+    public int languagesPerCountry() {
+        return languagesPerCountry;
+    }
+
+    /**
+     * @param rank Country rank.
+     * @return Country code.
+     */
+    public String countryCode(int rank) {
+        return codes[rank];
+    }
+
+    /**
+     * Fills the values of a City row.
+     *
+     * @param id City ID from 1 to {@link #MAX_CITIES}.
+     * @param row Row of {@link #CITY_COLUMNS} length.
+     */
+    public void city(long id, Object[] row) {
+        long rnd = mix(seed + id);
+
+        int rank = Arrays.binarySearch(cdf, toDouble(rnd));
+
+        String code = codes[rank < 0 ? Math.min(-rank - 1, codes.length - 1) : rank];
+
+        rnd = mix(rnd);
+
+        row[0] = (int)id;
+        row[1] = "City " + id;
+        row[2] = code;
+        row[3] = "District " + code + ' ' + (rnd & 0xFF);
+        // Log-normal-ish populations: most cities are small, a few are huge.
+        row[4] = (int)Math.min(Integer.MAX_VALUE, Math.exp(10 + 2 * gaussian(mix(rnd))));
+    }
+
+    /**
+     * Fills the values of a Country row.
+     *
+     * @param rank Country rank.
+     * @param row Row of {@link #COUNTRY_COLUMNS} length.
+     */
+    public void country(int rank, Object[] row) {
+        long rnd = mix(seed ^ (0xC0FFEEL + rank));
+
+        String code = codes[rank];
+
+        row[0] = code;
+        row[1] = "Country " + code;
+        row[2] = CONTINENTS[(int)((rnd >>> 1) % CONTINENTS.length)];
+        row[3] = "Region " + ((rnd >>> 8) & 0x1F);
+        row[4] = BigDecimal.valueOf((rnd >>> 16) % 1_000_000_000L, 2);
+        // Populations follow the same skew as the number of cities.
+        row[5] = (int)Math.min(Integer.MAX_VALUE, (long)(2_000_000_000L * share(rank)) + 1_000);
+        row[6] = BigDecimal.valueOf(400 + (rnd >>> 40) % 450, 1);
+        row[7] = "Head of " + code;
+        row[8] = rank + 1;
+        row[9] = code.substring(0, 2);
+    }
+
+    /**
+     * Fills the values of a CountryLanguage row.
+     *
+     * @param rank Country rank.
+     * @param lang Language number within the country.
+     * @param row Row of {@link #LANGUAGE_COLUMNS} length.
+     */
+    public void language(int rank, int lang, Object[] row) {
+        row[0] = codes[rank];
+        row[1] = "Language " + lang;
+        row[2] = lang == 0 ? "T" : "F";
+        row[3] = BigDecimal.valueOf(1000 / (lang + 2), 1);
+    }
+
+    /**
+     * @param rank Country rank.
+     * @return Expected share of the cities that belong to the country.
+     */
+    public double share(int rank) {
+        return rank == 0 ? cdf[0] : cdf[rank] - cdf[rank - 1];
+    }
+
+    /**
+     * Real codes of the largest countries first, then all the other three-letter codes in order.
+     */
+    private static String[] countryCodes(int countries) {
+        String[] codes = new String[countries];
+
+        Set<String> used = new HashSet<>();
+
+        int i = 0;
+
+        for (; i < Math.min(countries, TOP_COUNTRIES.length); i++) {
+            codes[i] = TOP_COUNTRIES[i];
+
+            used.add(codes[i]);
+        }
+
+        for (int n = 0; i < countries; n++) {
+            String code = new String(new char[] {(char)('A' + n / 676), (char)('A' + n / 26 % 26), (char)('A' + n % 26)});
+
+            if (used.add(code))
+                codes[i++] = code;
+        }
+
+        return codes;
+    }
+
+    /**
+     * SplitMix64 finalizer, turns a counter into a well-distributed pseudo-random value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return Uniform value in [0, 1).
+     */
+    private static double toDouble(long rnd) {
+        return (rnd >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * @return Approximately standard normal value (Irwin-Hall with four uniforms).
+     */
+    private static double gaussian(long rnd) {
+        double sum = 0;
+
+        for (int i = 0; i < 4; i++) {
+            sum += (rnd & 0xFFFF) / 65536.0;
+
+            rnd >>>= 16;
+        }
+
+        return (sum - 2) * Math.sqrt(3);
+    }
+}
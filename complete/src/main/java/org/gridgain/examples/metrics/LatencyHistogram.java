@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe latency histogram with a fixed memory footprint, built the same way as HdrHistogram: every power of
+ * two is split into {@link #SUB_BUCKETS} linear buckets, so any recorded value is reported with an error of at most
+ * 1/{@link #SUB_BUCKETS} (about 3%) and the tail percentiles stay precise no matter how many values are recorded.
+ */
+public class LatencyHistogram {
+    /** Bits of the linear part of a bucket index. */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Number of linear buckets per power of two. */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Counts of values by bucket. */
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+
+    /** Number of values. */
+    private final LongAdder count = new LongAdder();
+
+    /** Sum of values. */
+    private final LongAdder sum = new LongAdder();
+
+    /** Maximum value. */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     *
+     * @param val Value, negative values are recorded as 0.
+     */
+    public void record(long val) {
+        val = Math.max(0, val);
+
+        counts.incrementAndGet(bucket(val));
+        count.increment();
+        sum.add(val);
+
+        long prevMax = max.get();
+
+        while (val > prevMax && !max.compareAndSet(prevMax, val))
+            prevMax = max.get();
+    }
+
+    /**
+     * @return Number of recorded values.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return Mean of the recorded values or 0 if there are none.
+     */
+    public long mean() {
+        long cnt = count.sum();
+
+        return cnt == 0 ? 0 : sum.sum() / cnt;
+    }
+
+    /**
+     * @return Maximum recorded value.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Gets a value that is greater than or equal to the given percentage of the recorded values.
+     *
+     * @param percentile Percentile, from 0 to 100.
+     * @return Value at the percentile or 0 if nothing has been recorded.
+     */
+    public long percentile(double percentile) {
+        long cnt = count.sum();
+
+        if (cnt == 0)
+            return 0;
+
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100 * cnt));
+
+        long seen = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+
+            if (seen >= rank)
+                return Math.min(highestValue(i), max());
+        }
+
+        return max();
+    }
+
+    /**
+     * Gets the bucket of a value, the buckets can be shared by other histograms of non-negative values.
+     *
+     * @param val Non-negative value.
+     * @return Index of the bucket of the value.
+     */
+    public static int bucket(long val) {
+        if (val < SUB_BUCKETS)
+            return (int)val;
+
+        int shift = 63 - Long.numberOfLeadingZeros(val) - SUB_BUCKET_BITS;
+
+        return (shift + 1) * SUB_BUCKETS + (int)((val >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * @param bucket Index of a bucket.
+     * @return Highest value that falls into the bucket.
+     */
+    public static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+
+        long lowest = (long)(SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+
+        return lowest + (1L << shift) - 1;
+    }
+}
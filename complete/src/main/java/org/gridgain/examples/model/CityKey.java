@@ -20,7 +20,7 @@ package org.gridgain.examples.model;
 import java.util.Objects;
 import org.apache.ignite.cache.affinity.AffinityKeyMapped;
 
-public class CityKey {
+public class CityKey implements Comparable<CityKey> {
     /**
      * At the moment, the letters of the key's fields have to be capitalized to overcome this limitation:
      * https://issues.apache.org/jira/browse/IGNITE-6785
@@ -43,6 +43,16 @@ public class CityKey {
         return COUNTRYCODE;
     }
 
+    /**
+     * Orders the keys by the country code and then by the ID. Transactions that lock several cities acquire the
+     * locks in this order to avoid deadlocks.
+     */
+    @Override public int compareTo(CityKey o) {
+        int res = COUNTRYCODE.compareTo(o.COUNTRYCODE);
+
+        return res != 0 ? res : Integer.compare(ID, o.ID);
+    }
+
     @Override public boolean equals(Object o) {
         if (this == o)
             return true;
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.model;
+
+import java.util.UUID;
+
+/**
+ * Population statistics of the cities of a country, stored in the CountryStats cache by the country code.
+ */
+public class CountryStats {
+    private long population;
+
+    private long cities;
+
+    private long minPopulation;
+
+    private long maxPopulation;
+
+    private UUID maintainerId;
+
+    private long cityUpdateCounter;
+
+    private long lastChangeCounter;
+
+    public long getPopulation() {
+        return population;
+    }
+
+    public void setPopulation(long population) {
+        this.population = population;
+    }
+
+    public long getCities() {
+        return cities;
+    }
+
+    public void setCities(long cities) {
+        this.cities = cities;
+    }
+
+    public long getMinPopulation() {
+        return minPopulation;
+    }
+
+    public void setMinPopulation(long minPopulation) {
+        this.minPopulation = minPopulation;
+    }
+
+    public long getMaxPopulation() {
+        return maxPopulation;
+    }
+
+    public void setMaxPopulation(long maxPopulation) {
+        this.maxPopulation = maxPopulation;
+    }
+
+    /**
+     * @return ID of the node whose view maintains the statistics, {@code null} if no view maintains them.
+     */
+    public UUID getMaintainerId() {
+        return maintainerId;
+    }
+
+    public void setMaintainerId(UUID maintainerId) {
+        this.maintainerId = maintainerId;
+    }
+
+    /**
+     * @return Update counter of the City partition of the country when the statistics have been recalculated.
+     */
+    public long getCityUpdateCounter() {
+        return cityUpdateCounter;
+    }
+
+    public void setCityUpdateCounter(long cityUpdateCounter) {
+        this.cityUpdateCounter = cityUpdateCounter;
+    }
+
+    /**
+     * @return Update counter of the City partition of the latest change of a city of the country seen by a view.
+     */
+    public long getLastChangeCounter() {
+        return lastChangeCounter;
+    }
+
+    public void setLastChangeCounter(long lastChangeCounter) {
+        this.lastChangeCounter = lastChangeCounter;
+    }
+
+    public long getAveragePopulation() {
+        return cities == 0 ? 0 : population / cities;
+    }
+
+    @Override public String toString() {
+        return "CountryStats{" +
+            "population=" + population +
+            ", cities=" + cities +
+            ", minPopulation=" + minPopulation +
+            ", maxPopulation=" + maxPopulation +
+            ", maintainerId=" + maintainerId +
+            '}';
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.processors;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.ignite.binary.BinaryField;
+import org.apache.ignite.binary.BinaryObject;
+
+/**
+ * Node-wide cache of {@link BinaryField} handles. A handle reads a field by its precomputed ID and caches the
+ * field's offset for the object's schema, while <code>BinaryObject.field(name)</code> resolves the field by name on
+ * every call. Entry processors are deserialized for every invocation, so the handles are kept in a static map
+ * rather than in the processor instances.
+ */
+public final class BinaryFields {
+    /** Handles by type ID and field name. */
+    private static final Map<Integer, Map<String, BinaryField>> FIELDS = new ConcurrentHashMap<>();
+
+    /** */
+    private BinaryFields() {
+        // No-op.
+    }
+
+    /**
+     * Gets the handle of a field of the object's type.
+     *
+     * @param obj Binary object.
+     * @param name Field name.
+     * @return Field handle.
+     */
+    public static BinaryField field(BinaryObject obj, String name) {
+        Map<String, BinaryField> typeFields = FIELDS.get(obj.type().typeId());
+
+        if (typeFields == null)
+            typeFields = FIELDS.computeIfAbsent(obj.type().typeId(), id -> new ConcurrentHashMap<>());
+
+        BinaryField field = typeFields.get(name);
+
+        if (field == null)
+            field = typeFields.computeIfAbsent(name, n -> obj.type().field(n));
+
+        return field;
+    }
+
+    /**
+     * Reads a field value with a cached handle.
+     *
+     * @param obj Binary object.
+     * @param name Field name.
+     * @return Field value or {@code null} if the object doesn't have the field.
+     */
+    public static <T> T value(BinaryObject obj, String name) {
+        return field(obj, name).value(obj);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.processors;
+
+import java.util.Objects;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+import org.apache.ignite.binary.BinaryObject;
+
+/**
+ * Sets a field of a record stored as a {@link BinaryObject} only if its current value equals the expected one.
+ * The record is neither rebuilt nor written if the comparison fails. Returns whether the field has been updated.
+ */
+public class CompareAndSetFieldProcessor<K> implements EntryProcessor<K, BinaryObject, Boolean> {
+    /** Field name. */
+    private final String field;
+
+    /** Expected value. */
+    private final Object expVal;
+
+    /** New value. */
+    private final Object newVal;
+
+    /**
+     * @param field Field name.
+     * @param expVal Expected value.
+     * @param newVal New value.
+     */
+    public CompareAndSetFieldProcessor(String field, Object expVal, Object newVal) {
+        this.field = field;
+        this.expVal = expVal;
+        this.newVal = newVal;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Boolean process(MutableEntry<K, BinaryObject> entry, Object... arguments) {
+        BinaryObject obj = entry.getValue();
+
+        if (obj == null || !Objects.equals(BinaryFields.value(obj, field), expVal))
+            return false;
+
+        if (!Objects.equals(expVal, newVal))
+            entry.setValue(obj.toBuilder().setField(field, newVal).build());
+
+        return true;
+    }
+}
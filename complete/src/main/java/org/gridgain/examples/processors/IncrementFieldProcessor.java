@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.processors;
+
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.MutableEntry;
+import org.apache.ignite.binary.BinaryObject;
+
+/**
+ * Adds a delta to a byte, short, integer or long field of a record stored as a {@link BinaryObject}, for instance
+ * to the population of a city. The field keeps its type, a new value out of the range of the type fails the
+ * invocation and the record is not changed. Returns the new value of the field or {@code null} if the record doesn't
+ * exist or the new value would be less than the optional lower bound, in the latter case the record is not changed.
+ * A caller that needs to tell these two cases apart has to check that the record exists on its own.
+ */
+public class IncrementFieldProcessor<K> implements EntryProcessor<K, BinaryObject, Long> {
+    /** Field name. */
+    private final String field;
+
+    /** Delta. */
+    private final long delta;
+
+    /** Lower bound of the new value. */
+    private final long min;
+
+    /**
+     * @param field Field name.
+     * @param delta Delta.
+     */
+    public IncrementFieldProcessor(String field, long delta) {
+        this(field, delta, Long.MIN_VALUE);
+    }
+
+    /**
+     * @param field Field name.
+     * @param delta Delta.
+     * @param min Lower bound of the new value, for instance 0 for the population of a city.
+     */
+    public IncrementFieldProcessor(String field, long delta, long min) {
+        this.field = field;
+        this.delta = delta;
+        this.min = min;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Long process(MutableEntry<K, BinaryObject> entry, Object... arguments) {
+        BinaryObject obj = entry.getValue();
+
+        if (obj == null)
+            return null;
+
+        Number prev = BinaryFields.value(obj, field);
+
+        if (prev == null)
+            throw new EntryProcessorException("Field is not set [field=" + field + ", key=" + entry.getKey() + ']');
+
+        if (delta == 0)
+            return prev.longValue();
+
+        long next = Math.addExact(prev.longValue(), delta);
+
+        if (next < min)
+            return null;
+
+        // Keeping the field type, otherwise the record would no longer match the SQL schema.
+        entry.setValue(obj.toBuilder().setField(field, sameType(prev, next)).build());
+
+        return next;
+    }
+
+    /**
+     * @param prev Previous value of the field.
+     * @param next New value.
+     * @return New value of the type of the previous one.
+     */
+    private static Number sameType(Number prev, long next) {
+        if (prev instanceof Long)
+            return next;
+
+        if (prev instanceof Integer)
+            return Math.toIntExact(next);
+
+        if (prev instanceof Short && next == (short)next)
+            return (short)next;
+
+        if (prev instanceof Byte && next == (byte)next)
+            return (byte)next;
+
+        throw new ArithmeticException("Value doesn't fit the field type [value=" + next + ", type=" +
+            prev.getClass().getSimpleName() + ']');
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.processors;
+
+import java.util.Objects;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+import org.apache.ignite.binary.BinaryObject;
+
+/**
+ * Sets a field of a record stored as a {@link BinaryObject}. The field is read with a cached {@link BinaryFields}
+ * handle and the record is rebuilt only if the value actually changes. Returns the previous value of the field.
+ */
+public class SetFieldProcessor<K> implements EntryProcessor<K, BinaryObject, Object> {
+    /** Field name. */
+    private final String field;
+
+    /** New value. */
+    private final Object val;
+
+    /**
+     * @param field Field name.
+     * @param val New value.
+     */
+    public SetFieldProcessor(String field, Object val) {
+        this.field = field;
+        this.val = val;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Object process(MutableEntry<K, BinaryObject> entry, Object... arguments) {
+        BinaryObject obj = entry.getValue();
+
+        if (obj == null)
+            return null;
+
+        Object prev = BinaryFields.value(obj, field);
+
+        // Skipping the builder and the write when there is nothing to change.
+        if (!Objects.equals(prev, val))
+            entry.setValue(obj.toBuilder().setField(field, val).build());
+
+        return prev;
+    }
+}
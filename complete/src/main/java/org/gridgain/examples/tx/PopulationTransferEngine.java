@@ -0,0 +1,496 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.tx;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorResult;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteTransactions;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+import org.apache.ignite.transactions.Transaction;
+import org.apache.ignite.transactions.TransactionConcurrency;
+import org.apache.ignite.transactions.TransactionDeadlockException;
+import org.apache.ignite.transactions.TransactionIsolation;
+import org.apache.ignite.transactions.TransactionOptimisticException;
+import org.apache.ignite.transactions.TransactionTimeoutException;
+import org.gridgain.examples.model.City;
+import org.gridgain.examples.model.CityKey;
+import org.gridgain.examples.processors.IncrementFieldProcessor;
+
+/**
+ * Moves residents between cities in transactions and can be used from any number of threads.
+ *
+ * The cities of a transfer are always accessed in the {@link CityKey} order, so two pessimistic transfers can't
+ * wait for each other's locks in a cycle. Optimistic serializable transactions don't lock anything until commit and
+ * fail if another transaction has changed the cities; such transfers, as well as the ones that time out, are
+ * retried with an exponential backoff.
+ *
+ * The {@link TransferMode} defines how many network round trips a transfer costs, see its constants for details.
+ */
+public class PopulationTransferEngine {
+    /**
+     * Ways to execute a transfer.
+     */
+    public enum TransferMode {
+        /** Separate get and put for each city: four sequential round trips plus commit. */
+        GET_PUT,
+
+        /** A single getAll reads (and locks) both cities, a single putAll writes them. */
+        GET_ALL,
+
+        /** A single invokeAll applies the deltas on the primary nodes, the cities are never sent to the client. */
+        INVOKE,
+
+        /**
+         * Same-country transfers are executed by a job on the primary node of the country: all the cities of a
+         * country are collocated, so the transaction is local to that node. Other transfers fall back to
+         * {@link #INVOKE}.
+         */
+        COLLOCATED
+    }
+
+    /** Maximum number of attempts of a transfer. */
+    private static final int MAX_ATTEMPTS = 16;
+
+    /** First backoff delay in microseconds. */
+    private static final long MIN_BACKOFF_MICROS = 100;
+
+    /** Maximum backoff delay in microseconds. */
+    private static final long MAX_BACKOFF_MICROS = 50_000;
+
+    /** City cache. */
+    private final IgniteCache<CityKey, City> cityCache;
+
+    /** Transactions facade. */
+    private final IgniteTransactions txs;
+
+    /** Transaction concurrency. */
+    private final TransactionConcurrency concurrency;
+
+    /** Transaction isolation. */
+    private final TransactionIsolation isolation;
+
+    /** Transaction timeout in milliseconds, 0 for no timeout. */
+    private final long timeout;
+
+    /** Transfer mode. */
+    private final TransferMode mode;
+
+    /** Ignite instance. */
+    private final Ignite ignite;
+
+    /** Latencies and outcomes of the transactions. */
+    private TxMetrics metrics = new TxMetrics();
+
+    /** Number of committed transfers. */
+    private final LongAdder committed = new LongAdder();
+
+    /** Number of transfers rejected because the source city didn't have enough residents. */
+    private final LongAdder rejected = new LongAdder();
+
+    /** Number of retried attempts. */
+    private final LongAdder retries = new LongAdder();
+
+    /** Number of transfers that failed after all the attempts. */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * @param ignite Ignite instance.
+     * @param concurrency Transaction concurrency.
+     * @param isolation Transaction isolation.
+     * @param timeout Transaction timeout in milliseconds, 0 for no timeout.
+     */
+    public PopulationTransferEngine(Ignite ignite, TransactionConcurrency concurrency, TransactionIsolation isolation,
+        long timeout) {
+        this(ignite, concurrency, isolation, timeout, TransferMode.GET_PUT);
+    }
+
+    /**
+     * @param ignite Ignite instance.
+     * @param concurrency Transaction concurrency.
+     * @param isolation Transaction isolation.
+     * @param timeout Transaction timeout in milliseconds, 0 for no timeout.
+     * @param mode Transfer mode.
+     */
+    public PopulationTransferEngine(Ignite ignite, TransactionConcurrency concurrency, TransactionIsolation isolation,
+        long timeout, TransferMode mode) {
+        this.ignite = ignite;
+        this.mode = mode;
+        this.cityCache = ignite.cache("City");
+        this.txs = ignite.transactions();
+        this.concurrency = concurrency;
+        this.isolation = isolation;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Makes the engine record its transactions to the given metrics, which can be shared by several engines.
+     *
+     * @param metrics Transaction metrics.
+     * @return {@code this} for chaining.
+     */
+    public PopulationTransferEngine metrics(TxMetrics metrics) {
+        this.metrics = metrics;
+
+        return this;
+    }
+
+    /**
+     * @return Latencies and outcomes of the transactions.
+     */
+    public TxMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Moves residents from one city to another.
+     *
+     * @param from Source city.
+     * @param to Destination city.
+     * @param residents Number of residents.
+     * @return {@code true} if the residents have been moved, {@code false} if the source city doesn't have enough
+     * residents or the transfer has failed after all the attempts.
+     */
+    public boolean transfer(CityKey from, CityKey to, int residents) {
+        if (from.equals(to))
+            throw new IllegalArgumentException("Source and destination are the same city: " + from);
+
+        long backoff = MIN_BACKOFF_MICROS;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                boolean res = transferOnce(from, to, residents);
+
+                if (res)
+                    committed.increment();
+                else
+                    rejected.increment();
+
+                return res;
+            }
+            catch (RuntimeException e) {
+                if (!isRetryable(e))
+                    throw e;
+
+                if (attempt == MAX_ATTEMPTS) {
+                    failed.increment();
+
+                    return false;
+                }
+
+                retries.increment();
+
+                backoff(backoff);
+
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MICROS);
+            }
+        }
+    }
+
+    /**
+     * Executes a single attempt of a transfer and records its latency and outcome.
+     */
+    private boolean transferOnce(CityKey from, CityKey to, int residents) {
+        TxMetrics.Timer timer = metrics.timer(concurrency, isolation);
+
+        try {
+            boolean res = transferOnce(from, to, residents, timer);
+
+            if (res)
+                timer.committed();
+            else
+                timer.rolledBack();
+
+            return res;
+        }
+        catch (RuntimeException e) {
+            timer.failed(e);
+
+            throw e;
+        }
+    }
+
+    /** */
+    private boolean transferOnce(CityKey from, CityKey to, int residents, TxMetrics.Timer timer) {
+        switch (mode) {
+            case GET_PUT:
+                return transferGetPut(from, to, residents, timer);
+
+            case GET_ALL:
+                return transferGetAll(from, to, residents, timer);
+
+            case INVOKE:
+                return transferInvoke(from, to, residents, timer);
+
+            case COLLOCATED:
+                if (!from.getCountryCode().equals(to.getCountryCode()))
+                    return transferInvoke(from, to, residents, timer);
+
+                // The phases are executed by the remote job, only the total latency is recorded.
+                return ignite.compute().affinityCall("City", from,
+                    new LocalTransferJob(concurrency, isolation, timeout, from, to, residents));
+
+            default:
+                throw new IllegalStateException("Unknown transfer mode: " + mode);
+        }
+    }
+
+    /**
+     * Reads and writes the cities one by one.
+     */
+    private boolean transferGetPut(CityKey from, CityKey to, int residents, TxMetrics.Timer timer) {
+        // Canonical order: the first city is locked first by pessimistic transactions.
+        boolean fromFirst = from.compareTo(to) < 0;
+
+        CityKey first = fromFirst ? from : to;
+        CityKey second = fromFirst ? to : from;
+
+        try (Transaction tx = txs.txStart(concurrency, isolation, timeout, 2)) {
+            timer.phase(TxMetrics.Phase.START);
+
+            City firstCity = cityCache.get(first);
+            City secondCity = cityCache.get(second);
+
+            timer.phase(TxMetrics.Phase.READ);
+
+            City fromCity = fromFirst ? firstCity : secondCity;
+            City toCity = fromFirst ? secondCity : firstCity;
+
+            if (fromCity == null || toCity == null || fromCity.getPopulation() < residents)
+                return false;
+
+            fromCity.setPopulation(fromCity.getPopulation() - residents);
+            toCity.setPopulation(toCity.getPopulation() + residents);
+
+            cityCache.put(first, firstCity);
+            cityCache.put(second, secondCity);
+
+            timer.phase(TxMetrics.Phase.WRITE);
+
+            tx.commit();
+
+            timer.phase(TxMetrics.Phase.COMMIT);
+
+            return true;
+        }
+    }
+
+    /**
+     * Reads both cities with one getAll and writes them with one putAll. Sorted collections keep the canonical
+     * lock order.
+     */
+    private boolean transferGetAll(CityKey from, CityKey to, int residents, TxMetrics.Timer timer) {
+        TreeSet<CityKey> keys = new TreeSet<>();
+
+        keys.add(from);
+        keys.add(to);
+
+        try (Transaction tx = txs.txStart(concurrency, isolation, timeout, 2)) {
+            timer.phase(TxMetrics.Phase.START);
+
+            Map<CityKey, City> cities = new TreeMap<>(cityCache.getAll(keys));
+
+            timer.phase(TxMetrics.Phase.READ);
+
+            City fromCity = cities.get(from);
+            City toCity = cities.get(to);
+
+            if (fromCity == null || toCity == null || fromCity.getPopulation() < residents)
+                return false;
+
+            fromCity.setPopulation(fromCity.getPopulation() - residents);
+            toCity.setPopulation(toCity.getPopulation() + residents);
+
+            cityCache.putAll(cities);
+
+            timer.phase(TxMetrics.Phase.WRITE);
+
+            tx.commit();
+
+            timer.phase(TxMetrics.Phase.COMMIT);
+
+            return true;
+        }
+    }
+
+    /**
+     * Applies the deltas on the primary nodes with one invokeAll. If the source city doesn't have enough
+     * residents, its processor doesn't change it and the transaction is rolled back.
+     */
+    private boolean transferInvoke(CityKey from, CityKey to, int residents, TxMetrics.Timer timer) {
+        return transferInvoke(txs, cityCache.withKeepBinary(), concurrency, isolation, timeout, from, to, residents,
+            timer);
+    }
+
+    /**
+     * @param timer Timer of the transaction or {@code null} if the transaction isn't timed.
+     */
+    private static boolean transferInvoke(IgniteTransactions txs, IgniteCache<CityKey, BinaryObject> cache,
+        TransactionConcurrency concurrency, TransactionIsolation isolation, long timeout, CityKey from, CityKey to,
+        int residents, TxMetrics.Timer timer) {
+        Map<CityKey, EntryProcessor<CityKey, BinaryObject, Long>> processors = new TreeMap<>();
+
+        processors.put(from, new IncrementFieldProcessor<>("population", -residents, 0));
+        processors.put(to, new IncrementFieldProcessor<>("population", residents));
+
+        try (Transaction tx = txs.txStart(concurrency, isolation, timeout, 2)) {
+            if (timer != null)
+                timer.phase(TxMetrics.Phase.START);
+
+            Map<CityKey, EntryProcessorResult<Long>> res = cache.invokeAll(processors);
+
+            if (timer != null)
+                timer.phase(TxMetrics.Phase.WRITE);
+
+            // The result map is keyed by binary keys and doesn't contain null results, which mean that a city
+            // doesn't exist or the source city doesn't have enough residents. The processor returns null in both
+            // cases, so they aren't told apart: either way the transfer is rolled back and reported as failed.
+            int updated = 0;
+
+            for (EntryProcessorResult<Long> r : res.values()) {
+                if (r.get() != null)
+                    updated++;
+            }
+
+            if (updated != processors.size())
+                return false;
+
+            tx.commit();
+
+            if (timer != null)
+                timer.phase(TxMetrics.Phase.COMMIT);
+
+            return true;
+        }
+    }
+
+    /**
+     * Executes a transfer between the cities of the same country on the primary node of the country, so that
+     * the transaction doesn't span several nodes.
+     */
+    private static class LocalTransferJob implements IgniteCallable<Boolean> {
+        /** */
+        @IgniteInstanceResource
+        private Ignite ignite;
+
+        /** */
+        private final TransactionConcurrency concurrency;
+
+        /** */
+        private final TransactionIsolation isolation;
+
+        /** */
+        private final long timeout;
+
+        /** */
+        private final CityKey from;
+
+        /** */
+        private final CityKey to;
+
+        /** */
+        private final int residents;
+
+        /** */
+        LocalTransferJob(TransactionConcurrency concurrency, TransactionIsolation isolation, long timeout,
+            CityKey from, CityKey to, int residents) {
+            this.concurrency = concurrency;
+            this.isolation = isolation;
+            this.timeout = timeout;
+            this.from = from;
+            this.to = to;
+            this.residents = residents;
+        }
+
+        @Override public Boolean call() {
+            return transferInvoke(ignite.transactions(), ignite.cache("City").withKeepBinary(), concurrency,
+                isolation, timeout, from, to, residents, null);
+        }
+    }
+
+    /**
+     * @return {@code true} if the exception or any of its causes means that the transfer can be retried.
+     */
+    private static boolean isRetryable(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TransactionOptimisticException || t instanceof TransactionTimeoutException ||
+                t instanceof TransactionDeadlockException)
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Sleeps for a random time up to the given delay, the jitter spreads the retries of conflicting transfers.
+     */
+    private static void backoff(long maxMicros) {
+        long micros = ThreadLocalRandom.current().nextLong(maxMicros / 2, maxMicros + 1);
+
+        try {
+            Thread.sleep(micros / 1000, (int)(micros % 1000) * 1000);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while retrying a transfer", e);
+        }
+    }
+
+    /**
+     * @return Number of committed transfers.
+     */
+    public long committed() {
+        return committed.sum();
+    }
+
+    /**
+     * @return Number of transfers rejected because the source city didn't have enough residents.
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return Number of retried attempts.
+     */
+    public long retries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return Number of transfers that failed after all the attempts.
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    @Override public String toString() {
+        return "PopulationTransferEngine [mode=" + mode + ", concurrency=" + concurrency + ", isolation=" + isolation +
+            ", committed=" + committed() + ", rejected=" + rejected() + ", retries=" + retries() +
+            ", failed=" + failed() + ']';
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.tx;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.ignite.transactions.TransactionConcurrency;
+import org.apache.ignite.transactions.TransactionDeadlockException;
+import org.apache.ignite.transactions.TransactionIsolation;
+import org.apache.ignite.transactions.TransactionOptimisticException;
+import org.apache.ignite.transactions.TransactionTimeoutException;
+import org.gridgain.examples.metrics.LatencyHistogram;
+
+/**
+ * Latency distributions of the phases of transactions and counts of their outcomes, kept separately for every
+ * concurrency and isolation mode. A transaction is timed with a {@link Timer} obtained from {@link #timer}.
+ *
+ * The metrics can be dumped to a file periodically with {@link #dumpPeriodically}, every dump appends the
+ * distributions accumulated since the start.
+ */
+public class TxMetrics implements AutoCloseable {
+    /**
+     * Phases of a transaction.
+     */
+    public enum Phase {
+        /** Start of the transaction. */
+        START,
+
+        /** Reads. Pessimistic transactions acquire the locks of the records here. */
+        READ,
+
+        /** Writes, including the entry processors. */
+        WRITE,
+
+        /**
+         * Commit. Optimistic transactions acquire the locks of the records here, the public API doesn't separate
+         * the prepare and commit steps of the two-phase commit.
+         */
+        COMMIT,
+
+        /** Whole transaction, whatever its outcome. */
+        TOTAL
+    }
+
+    /** Percentiles included in the dumps. */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /** Names of the percentiles. */
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    /** Metrics by transaction mode, sorted to keep the order of the dumps stable. */
+    private final ConcurrentMap<String, ModeMetrics> modes = new ConcurrentSkipListMap<>();
+
+    /** Executor of the periodic dumps. */
+    private ScheduledExecutorService dumper;
+
+    /** File of the periodic dumps. */
+    private Path dumpFile;
+
+    /**
+     * Starts timing a transaction.
+     *
+     * @param concurrency Transaction concurrency.
+     * @param isolation Transaction isolation.
+     * @return Timer of the transaction.
+     */
+    public Timer timer(TransactionConcurrency concurrency, TransactionIsolation isolation) {
+        return new Timer(modes.computeIfAbsent(concurrency + "/" + isolation, m -> new ModeMetrics()));
+    }
+
+    /**
+     * Appends the metrics to a file every period, and once more when the metrics are closed. A failed dump is
+     * reported to the standard error and the next period tries again.
+     *
+     * @param file File.
+     * @param periodMillis Period in milliseconds.
+     * @return {@code this} for chaining.
+     */
+    public synchronized TxMetrics dumpPeriodically(Path file, long periodMillis) {
+        if (dumper != null)
+            throw new IllegalStateException("Metrics are already being dumped");
+
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tx-metrics-dumper");
+
+            t.setDaemon(true);
+
+            return t;
+        });
+
+        // An exception would cancel the next dumps without a word.
+        dumper.scheduleAtFixedRate(() -> {
+            try {
+                dump(file);
+            }
+            catch (RuntimeException e) {
+                System.err.println("Failed to dump transaction metrics, will retry: " + e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+
+        dumpFile = file;
+
+        return this;
+    }
+
+    /**
+     * Appends the metrics to a file.
+     *
+     * @param file File.
+     */
+    public void dump(Path file) {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND), false, StandardCharsets.UTF_8.name())) {
+            out.println("# " + LocalDateTime.now());
+
+            dump(out);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to dump transaction metrics: " + file, e);
+        }
+    }
+
+    /**
+     * Prints the metrics of every transaction mode, the latencies are in microseconds.
+     *
+     * @param out Output stream.
+     */
+    public void dump(PrintStream out) {
+        for (Map.Entry<String, ModeMetrics> e : modes.entrySet()) {
+            ModeMetrics m = e.getValue();
+
+            out.println("TxMetrics [mode=" + e.getKey() + ", commits=" + m.commits.sum() + ", rollbacks=" +
+                m.rollbacks.sum() + ", timeouts=" + m.timeouts.sum() + ", deadlocks=" + m.deadlocks.sum() +
+                ", optimisticFailures=" + m.optimisticFailures.sum() + ']');
+
+            for (Map.Entry<Phase, LatencyHistogram> p : m.phases.entrySet()) {
+                LatencyHistogram h = p.getValue();
+
+                if (h.count() == 0)
+                    continue;
+
+                StringBuilder sb = new StringBuilder("    ").append(p.getKey())
+                    .append(" [count=").append(h.count())
+                    .append(", mean=").append(h.mean() / 1000);
+
+                for (int i = 0; i < PERCENTILES.length; i++)
+                    sb.append(", ").append(PERCENTILE_NAMES[i]).append('=')
+                        .append(h.percentile(PERCENTILES[i]) / 1000);
+
+                out.println(sb.append(", max=").append(h.max() / 1000).append(']'));
+            }
+        }
+    }
+
+    /**
+     * Stops the periodic dumps and writes the final one once a dump in progress, if any, completes.
+     */
+    @Override public synchronized void close() {
+        if (dumper != null) {
+            // Cancels the next periodic dumps, but lets the current one finish, so that it doesn't interleave
+            // with the final dump in the file.
+            dumper.shutdown();
+
+            try {
+                if (!dumper.awaitTermination(10, TimeUnit.SECONDS))
+                    System.err.println("Periodic dump of transaction metrics hasn't completed in time");
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            dump(dumpFile);
+
+            dumper = null;
+            dumpFile = null;
+        }
+    }
+
+    /**
+     * Times the phases of a single transaction. Every call of {@link #phase} records the time passed since the
+     * previous call, or since the creation of the timer, as the duration of the phase. Not thread-safe.
+     */
+    public static class Timer {
+        /** Metrics of the transaction mode. */
+        private final ModeMetrics metrics;
+
+        /** Start time. */
+        private final long start = System.nanoTime();
+
+        /** End time of the previous phase. */
+        private long last = start;
+
+        /** */
+        private Timer(ModeMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        /**
+         * Ends a phase.
+         *
+         * @param phase Phase.
+         */
+        public void phase(Phase phase) {
+            long now = System.nanoTime();
+
+            metrics.phases.get(phase).record(now - last);
+
+            last = now;
+        }
+
+        /**
+         * Ends a committed transaction.
+         */
+        public void committed() {
+            metrics.commits.increment();
+
+            total();
+        }
+
+        /**
+         * Ends a transaction that has been rolled back by the application.
+         */
+        public void rolledBack() {
+            metrics.rollbacks.increment();
+
+            total();
+        }
+
+        /**
+         * Ends a failed transaction.
+         *
+         * @param e Failure.
+         */
+        public void failed(Throwable e) {
+            metrics.rollbacks.increment();
+
+            for (Throwable t = e; t != null; t = t.getCause()) {
+                if (t instanceof TransactionTimeoutException) {
+                    metrics.timeouts.increment();
+
+                    break;
+                }
+
+                if (t instanceof TransactionDeadlockException) {
+                    metrics.deadlocks.increment();
+
+                    break;
+                }
+
+                if (t instanceof TransactionOptimisticException) {
+                    metrics.optimisticFailures.increment();
+
+                    break;
+                }
+            }
+
+            total();
+        }
+
+        /** */
+        private void total() {
+            metrics.phases.get(Phase.TOTAL).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Metrics of a transaction mode.
+     */
+    private static class ModeMetrics {
+        /** Latencies by phase. */
+        private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+
+        /** */
+        private final LongAdder commits = new LongAdder();
+
+        /** Rolled back transactions, including the failed ones. */
+        private final LongAdder rollbacks = new LongAdder();
+
+        /** */
+        private final LongAdder timeouts = new LongAdder();
+
+        /** */
+        private final LongAdder deadlocks = new LongAdder();
+
+        /** */
+        private final LongAdder optimisticFailures = new LongAdder();
+
+        /** */
+        ModeMetrics() {
+            for (Phase phase : Phase.values())
+                phases.put(phase, new LatencyHistogram());
+        }
+    }
+}
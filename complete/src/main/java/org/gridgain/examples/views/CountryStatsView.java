@@ -0,0 +1,598 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.views;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import javax.cache.Cache;
+import javax.cache.configuration.Factory;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryEventFilter;
+import javax.cache.event.EventType;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.apache.ignite.cache.CacheAtomicityMode;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.query.CacheQueryEntryEvent;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.lang.IgniteAsyncCallback;
+import org.apache.ignite.lang.IgniteRunnable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+import org.gridgain.examples.compute.PartitionUpdateCounters;
+import org.gridgain.examples.model.CountryStats;
+import org.gridgain.examples.processors.BinaryFields;
+
+/**
+ * Keeps the population statistics of every country in the CountryStats cache, so that reading the average
+ * population of a country is a single key lookup rather than a scan of its cities.
+ *
+ * The statistics are maintained by a continuous query over the City cache. The remote filter of the query applies
+ * every population change to the statistics of the country on the primary node of the city and never sends anything
+ * to the application. The CountryStats cache uses the country code as the key and the default affinity, so the
+ * statistics of a country are stored in the same partition as the country and its cities and the updates don't leave
+ * the node.
+ *
+ * The total population and the number of cities are updated incrementally. The minimum and maximum can't be
+ * updated that way when the smallest or the largest city shrinks, grows or is removed, so they are recalculated
+ * with a local query over the cities of the country in such cases.
+ *
+ * {@link #rebuild} recalculates the statistics of every country on the primary node of the country. The update
+ * counter of the City partition of the country is read before and after the local query over its cities, and the
+ * query is repeated if the counter has moved or a transaction holds a reserved counter of the partition, so the
+ * result includes exactly the changes up to that counter. An entry processor stores the result together with the
+ * counter, and the filter skips the changes the query has already seen. Every change the filter receives is
+ * recorded in the statistics, applied or not, so the processor rejects a result older than a change it would
+ * overwrite and the rebuild repeats the query. The same is done for the minimum and maximum. The queries are
+ * executed outside of the entry processors, which never access other caches.
+ *
+ * A country whose cities have all been removed keeps a record with no cities, so that its counters aren't lost,
+ * {@link #get} returns {@code null} for such a country.
+ *
+ * The continuous query is registered by the node that opens the view and is dropped when that node leaves the
+ * cluster, so the statistics are kept up to date only while the view is open. Every record stores the ID of the node
+ * whose view maintains it, use {@link #isMaintained} to check that the statistics are current. Opening a view on
+ * another node takes the maintenance over, the filters of the previous view leave the statistics alone.
+ */
+public class CountryStatsView implements AutoCloseable {
+    /** Name of the cache of the statistics. */
+    public static final String CACHE_NAME = "CountryStats";
+
+    /** Number of attempts to read the cities of a country while the partition is being updated. */
+    private static final int SNAPSHOT_ATTEMPTS = 100;
+
+    /** Ignite instance. */
+    private final Ignite ignite;
+
+    /** Statistics by country code. */
+    private final IgniteCache<String, CountryStats> statsCache;
+
+    /** Cursor of the continuous query maintaining the statistics. */
+    private final QueryCursor<?> cursor;
+
+    /** ID of the local node, it maintains the statistics. */
+    private final UUID maintainerId;
+
+    /**
+     * Creates the cache of the statistics if it doesn't exist, starts maintaining and builds the statistics.
+     *
+     * @param ignite Ignite instance.
+     */
+    public CountryStatsView(Ignite ignite) {
+        this.ignite = ignite;
+
+        maintainerId = ignite.cluster().localNode().id();
+
+        CacheConfiguration<String, CountryStats> cfg = new CacheConfiguration<>(CACHE_NAME);
+
+        cfg.setBackups(1);
+        cfg.setAtomicityMode(CacheAtomicityMode.ATOMIC);
+
+        statsCache = ignite.getOrCreateCache(cfg);
+
+        ContinuousQuery<BinaryObject, BinaryObject> query = new ContinuousQuery<>();
+
+        query.setRemoteFilterFactory(new StatsUpdaterFactory(maintainerId));
+
+        // Nothing is sent to the application, but a continuous query requires a listener.
+        query.setLocalListener(events -> { });
+
+        cursor = ignite.cache("City").withKeepBinary().query(query);
+
+        rebuild();
+    }
+
+    /**
+     * Recalculates the statistics of all the countries from scratch and takes the maintenance of the statistics over.
+     */
+    public void rebuild() {
+        ignite.compute(ignite.cluster().forServers()).broadcast(new RebuildJob(maintainerId));
+    }
+
+    /**
+     * @param countryCode Country code.
+     * @return Statistics of the country or {@code null} if the country has no cities.
+     */
+    public CountryStats get(String countryCode) {
+        CountryStats stats = statsCache.get(countryCode);
+
+        return stats == null || stats.getCities() == 0 ? null : stats;
+    }
+
+    /**
+     * @param ignite Ignite instance.
+     * @param stats Statistics read from the cache.
+     * @return {@code true} if the statistics are maintained by a view, {@code false} if they may be stale.
+     */
+    public static boolean isMaintained(Ignite ignite, CountryStats stats) {
+        return stats.getMaintainerId() != null && ignite.cluster().node(stats.getMaintainerId()) != null;
+    }
+
+    /**
+     * Stops maintaining the statistics. The cache of the statistics is kept, but its records no longer refer to
+     * the view, so {@link #isMaintained} returns {@code false} for them.
+     */
+    @Override public void close() {
+        cursor.close();
+
+        Set<String> codes = new HashSet<>();
+
+        try (QueryCursor<Cache.Entry<String, BinaryObject>> entries = statsCache.<String, BinaryObject>withKeepBinary()
+            .query(new ScanQuery<>())) {
+            for (Cache.Entry<String, BinaryObject> e : entries)
+                codes.add(e.getKey());
+        }
+
+        statsCache.<String, BinaryObject>withKeepBinary().invokeAll(codes, new ReleaseProcessor(maintainerId));
+    }
+
+    /**
+     * Recalculates the statistics of the countries stored in the primary partitions of the local node, including
+     * the countries whose cities have all been removed.
+     */
+    private static class RebuildJob implements IgniteRunnable {
+        /** */
+        @IgniteInstanceResource
+        private Ignite ignite;
+
+        /** ID of the node maintaining the statistics. */
+        private final UUID maintainerId;
+
+        /** */
+        RebuildJob(UUID maintainerId) {
+            this.maintainerId = maintainerId;
+        }
+
+        /** {@inheritDoc} */
+        @Override public void run() {
+            int[] parts = ignite.affinity("City").primaryPartitions(ignite.cluster().localNode());
+
+            if (parts.length == 0)
+                return;
+
+            Set<String> codes = new HashSet<>();
+
+            SqlFieldsQuery query = new SqlFieldsQuery("SELECT DISTINCT countrycode FROM City")
+                .setLocal(true)
+                .setPartitions(parts);
+
+            for (List<?> row : ignite.cache("City").query(query).getAll())
+                codes.add((String)row.get(0));
+
+            IgniteCache<String, BinaryObject> stats = ignite.cache(CACHE_NAME).withKeepBinary();
+
+            for (Cache.Entry<String, BinaryObject> e : stats.localEntries(CachePeekMode.PRIMARY))
+                codes.add(e.getKey());
+
+            for (String code : codes) {
+                SqlFieldsQuery statsQuery = new SqlFieldsQuery("SELECT SUM(CAST(population AS BIGINT)), COUNT(*), " +
+                    "MIN(population), MAX(population) FROM City WHERE countrycode = ?").setArgs(code);
+
+                for (int attempt = 1; ; attempt++) {
+                    CitySnapshot snapshot = CitySnapshot.read(ignite, code, statsQuery, attempt);
+
+                    if (Boolean.TRUE.equals(stats.invoke(code, new RecalculateProcessor(maintainerId, snapshot))))
+                        break;
+
+                    checkAttempts(code, attempt);
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws IgniteException If the attempts to read the cities of the country are exhausted.
+     */
+    private static void checkAttempts(String countryCode, int attempt) {
+        if (attempt >= SNAPSHOT_ATTEMPTS)
+            throw new IgniteException("Cities of the country keep changing, retry the rebuild: " + countryCode);
+    }
+
+    /**
+     * Result of a local query over the cities of a country together with the update counter of their City partition
+     * the result corresponds to.
+     */
+    private static class CitySnapshot implements Serializable {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Update counter of the City partition. */
+        private final long cntr;
+
+        /** Row of the query. */
+        private final List<?> row;
+
+        /** */
+        private CitySnapshot(long cntr, List<?> row) {
+            this.cntr = cntr;
+            this.row = row;
+        }
+
+        /**
+         * Executes a local query over the cities of a country stored on this node. The counter is read before and
+         * after the query, and the query is repeated if a change has been made meanwhile, since it isn't known
+         * whether the query has seen the change. The counter is read only while no update of the partition is in
+         * progress, see {@link PartitionUpdateCounters#localSettled}: a transaction that commits out of order makes
+         * its change visible while the counter stays below the counter of the change.
+         *
+         * @param ignite Ignite instance of the primary node of the country.
+         * @param countryCode Country code.
+         * @param query Query returning a single row.
+         * @param attempt Number of the attempt of the caller, counted towards {@link #SNAPSHOT_ATTEMPTS}.
+         * @return Snapshot.
+         * @throws IgniteException If the partition is no longer owned by the node or keeps changing.
+         */
+        static CitySnapshot read(Ignite ignite, String countryCode, SqlFieldsQuery query, int attempt) {
+            int part = ignite.affinity("City").partition(countryCode);
+
+            query.setLocal(true);
+
+            for (; ; attempt++) {
+                // City is transactional, its counter is trusted only while no transaction holds a reserved one.
+                long before = PartitionUpdateCounters.localSettled(ignite, "City", part);
+
+                if (before < 0 && PartitionUpdateCounters.local(ignite, "City", part) < 0)
+                    throw new IgniteException("Partition has moved to another node, retry the rebuild: " + part);
+
+                if (before >= 0) {
+                    List<?> row = ignite.cache("City").query(query).getAll().get(0);
+
+                    if (PartitionUpdateCounters.localSettled(ignite, "City", part) == before)
+                        return new CitySnapshot(before, row);
+                }
+
+                checkAttempts(countryCode, attempt);
+            }
+        }
+
+        /**
+         * @param col Column.
+         * @return Value of the column as a {@code long}, 0 for {@code null}.
+         */
+        long value(int col) {
+            Object val = row.get(col);
+
+            return val == null ? 0 : ((Number)val).longValue();
+        }
+    }
+
+    /**
+     * Creates the filters that maintain the statistics.
+     */
+    private static class StatsUpdaterFactory implements Factory<CacheEntryEventFilter<BinaryObject, BinaryObject>> {
+        /** ID of the node maintaining the statistics. */
+        private final UUID maintainerId;
+
+        /** */
+        StatsUpdaterFactory(UUID maintainerId) {
+            this.maintainerId = maintainerId;
+        }
+
+        /** {@inheritDoc} */
+        @Override public CacheEntryEventFilter<BinaryObject, BinaryObject> create() {
+            return new StatsUpdater(maintainerId);
+        }
+    }
+
+    /**
+     * Applies a change of a city to the statistics of its country. The filter updates a cache, so it's executed
+     * asynchronously rather than in the thread that has updated the city.
+     */
+    @IgniteAsyncCallback
+    private static class StatsUpdater implements CacheEntryEventFilter<BinaryObject, BinaryObject> {
+        /** */
+        @IgniteInstanceResource
+        private Ignite ignite;
+
+        /** ID of the node maintaining the statistics. */
+        private final UUID maintainerId;
+
+        /** */
+        StatsUpdater(UUID maintainerId) {
+            this.maintainerId = maintainerId;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean evaluate(CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e) {
+            // The statistics are updated once, by the primary node of the city.
+            if (!ignite.affinity("City").isPrimary(ignite.cluster().localNode(), e.getKey()))
+                return false;
+
+            boolean removed = e.getEventType() == EventType.REMOVED || e.getEventType() == EventType.EXPIRED;
+
+            Long oldPopulation = e.getOldValue() == null ? null : population(e.getOldValue());
+            Long newPopulation = removed || e.getValue() == null ? null : population(e.getValue());
+
+            if (oldPopulation != null && oldPopulation.equals(newPopulation))
+                return false;
+
+            String countryCode = BinaryFields.value(e.getKey(), "countrycode");
+
+            IgniteCache<String, BinaryObject> stats = ignite.cache(CACHE_NAME).withKeepBinary();
+
+            long cntr = ((CacheQueryEntryEvent<?, ?>)e).getPartitionUpdateCounter();
+
+            Boolean extremaStale = stats.invoke(countryCode,
+                new StatsUpdateProcessor(maintainerId, cntr, oldPopulation, newPopulation));
+
+            if (Boolean.TRUE.equals(extremaStale)) {
+                SqlFieldsQuery query = new SqlFieldsQuery("SELECT MIN(population), MAX(population) FROM City " +
+                    "WHERE countrycode = ?").setArgs(countryCode);
+
+                for (int attempt = 1; ; attempt++) {
+                    // The cities of the country are stored on this node.
+                    CitySnapshot snapshot = CitySnapshot.read(ignite, countryCode, query, attempt);
+
+                    if (snapshot.row.get(0) == null || Boolean.TRUE.equals(stats.invoke(countryCode,
+                        new ExtremaProcessor(snapshot.value(0), snapshot.value(1), snapshot.cntr))))
+                        break;
+
+                    checkAttempts(countryCode, attempt);
+                }
+            }
+
+            return false;
+        }
+
+        /** */
+        private static long population(BinaryObject city) {
+            return BinaryFields.<Number>value(city, "population").longValue();
+        }
+    }
+
+    /**
+     * Stores the statistics of a country recalculated by a local query over its cities. Returns {@code false} and
+     * doesn't change the statistics if a change newer than the query has already been seen by a filter.
+     */
+    private static class RecalculateProcessor implements EntryProcessor<String, BinaryObject, Boolean> {
+        /** ID of the node maintaining the statistics. */
+        private final UUID maintainerId;
+
+        /** Result of the query over the cities of the country. */
+        private final CitySnapshot snapshot;
+
+        /** */
+        RecalculateProcessor(UUID maintainerId, CitySnapshot snapshot) {
+            this.maintainerId = maintainerId;
+            this.snapshot = snapshot;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Boolean process(MutableEntry<String, BinaryObject> entry, Object... args) {
+            BinaryObject stats = entry.getValue();
+
+            long lastChange = lastChangeCounter(stats);
+
+            if (lastChange > snapshot.cntr)
+                return false;
+
+            long cities = snapshot.value(1);
+
+            if (cities == 0 && stats == null)
+                return true;
+
+            BinaryObjectBuilder builder = stats != null ? stats.toBuilder() :
+                entry.unwrap(Ignite.class).binary().builder(CountryStats.class.getName());
+
+            entry.setValue(builder
+                .setField("population", snapshot.value(0))
+                .setField("cities", cities)
+                .setField("minPopulation", snapshot.value(2))
+                .setField("maxPopulation", snapshot.value(3))
+                .setField("maintainerId", maintainerId)
+                .setField("cityUpdateCounter", snapshot.cntr)
+                .setField("lastChangeCounter", lastChange)
+                .build());
+
+            return true;
+        }
+    }
+
+    /**
+     * @param stats Statistics or {@code null}.
+     * @return Counter of the latest change seen by a filter, 0 if unknown.
+     */
+    private static long lastChangeCounter(BinaryObject stats) {
+        Long cntr = stats == null ? null : stats.<Long>field("lastChangeCounter");
+
+        return cntr == null ? 0 : cntr;
+    }
+
+    /**
+     * Applies a change of a city to the statistics of a country. Returns {@code true} if the minimum or the maximum
+     * population may no longer be correct and has to be recalculated.
+     *
+     * The change is skipped if the statistics are maintained by another view or if the latest recalculation of the
+     * statistics has already seen it. Its counter is recorded either way, see {@link RecalculateProcessor}.
+     */
+    private static class StatsUpdateProcessor implements EntryProcessor<String, BinaryObject, Boolean> {
+        /** ID of the node maintaining the statistics. */
+        private final UUID maintainerId;
+
+        /** Update counter of the City partition of the change. */
+        private final long cntr;
+
+        /** Previous population of the city, {@code null} if the city is new. */
+        private final Long oldPopulation;
+
+        /** New population of the city, {@code null} if the city has been removed. */
+        private final Long newPopulation;
+
+        /** */
+        StatsUpdateProcessor(UUID maintainerId, long cntr, Long oldPopulation, Long newPopulation) {
+            this.maintainerId = maintainerId;
+            this.cntr = cntr;
+            this.oldPopulation = oldPopulation;
+            this.newPopulation = newPopulation;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Boolean process(MutableEntry<String, BinaryObject> entry, Object... args) {
+            BinaryObject stats = entry.getValue();
+
+            long lastChange = Math.max(lastChangeCounter(stats), cntr);
+
+            if (stats != null && (!maintainerId.equals(stats.field("maintainerId")) ||
+                cntr <= stats.<Long>field("cityUpdateCounter"))) {
+                if (lastChange != lastChangeCounter(stats))
+                    entry.setValue(stats.toBuilder().setField("lastChangeCounter", lastChange).build());
+
+                return false;
+            }
+
+            long population = stats == null ? 0 : stats.<Long>field("population");
+            long cities = stats == null ? 0 : stats.<Long>field("cities");
+            long min = cities == 0 ? Long.MAX_VALUE : stats.<Long>field("minPopulation");
+            long max = cities == 0 ? Long.MIN_VALUE : stats.<Long>field("maxPopulation");
+
+            boolean extremaStale = false;
+
+            if (oldPopulation != null) {
+                population -= oldPopulation;
+                cities--;
+
+                // The city might have been the only one with the minimum or the maximum population.
+                extremaStale = oldPopulation == min || oldPopulation == max;
+            }
+
+            if (newPopulation != null) {
+                population += newPopulation;
+                cities++;
+
+                min = Math.min(min, newPopulation);
+                max = Math.max(max, newPopulation);
+            }
+
+            // Keeping the record of a country without cities, so that its counters aren't lost.
+            if (cities <= 0) {
+                population = 0;
+                cities = 0;
+                min = 0;
+                max = 0;
+                extremaStale = false;
+            }
+
+            // A new record hasn't been recalculated yet.
+            BinaryObjectBuilder builder = stats == null ? entry.unwrap(Ignite.class).binary()
+                .builder(CountryStats.class.getName()).setField("cityUpdateCounter", 0L) : stats.toBuilder();
+
+            entry.setValue(builder
+                .setField("population", population)
+                .setField("cities", cities)
+                .setField("minPopulation", min)
+                .setField("maxPopulation", max)
+                .setField("maintainerId", maintainerId)
+                .setField("lastChangeCounter", lastChange)
+                .build());
+
+            return extremaStale;
+        }
+    }
+
+    /**
+     * Sets the minimum and maximum population of a country read by a local query over its cities. Returns
+     * {@code false} and doesn't change the statistics if a change newer than the query has already been seen.
+     */
+    private static class ExtremaProcessor implements EntryProcessor<String, BinaryObject, Boolean> {
+        /** */
+        private final long min;
+
+        /** */
+        private final long max;
+
+        /** Update counter of the City partition the query has seen. */
+        private final long cntr;
+
+        /** */
+        ExtremaProcessor(long min, long max, long cntr) {
+            this.min = min;
+            this.max = max;
+            this.cntr = cntr;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Boolean process(MutableEntry<String, BinaryObject> entry, Object... args) {
+            BinaryObject stats = entry.getValue();
+
+            if (stats == null || stats.<Long>field("cities") == 0)
+                return true;
+
+            if (lastChangeCounter(stats) > cntr)
+                return false;
+
+            entry.setValue(stats.toBuilder()
+                .setField("minPopulation", min)
+                .setField("maxPopulation", max)
+                .build());
+
+            return true;
+        }
+    }
+
+    /**
+     * Clears the ID of the node maintaining the statistics of a country, if that's the given node.
+     */
+    private static class ReleaseProcessor implements EntryProcessor<String, BinaryObject, Void> {
+        /** ID of the node that has maintained the statistics. */
+        private final UUID maintainerId;
+
+        /** */
+        ReleaseProcessor(UUID maintainerId) {
+            this.maintainerId = maintainerId;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Void process(MutableEntry<String, BinaryObject> entry, Object... args) {
+            if (entry.exists() && maintainerId.equals(entry.getValue().field("maintainerId")))
+                entry.setValue(entry.getValue().toBuilder().setField("maintainerId", null).build());
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gridgain.examples.views;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+import javax.cache.Cache;
+import javax.cache.configuration.Factory;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryEventFilter;
+import javax.cache.event.EventType;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.gridgain.examples.model.CityKey;
+import org.gridgain.examples.processors.BinaryFields;
+
+/**
+ * Client-side view of the cities ordered by population that answers top-N queries without going to the cluster.
+ *
+ * The view subscribes for the changes of the cities with a continuous query and loads the current cities with the
+ * initial query of the same continuous query, page by page. The continuous query is registered before the initial
+ * query starts, so no change is missed. The changes received while the cities are loaded are buffered and applied
+ * once the load is complete. Every change carries the new population of a city rather than a difference, so
+ * applying a change that the loaded data already reflects does no harm, and the view ends up with the latest state.
+ *
+ * The cities are kept in a skip list ordered by population, so a change costs a removal and an insertion and the
+ * top N cities are the first N elements of the list. Readers don't lock the list. A city that is being moved may be
+ * missing from a concurrent read for a moment.
+ */
+public class TopCitiesView implements AutoCloseable {
+    /** Orders the cities by population, the most populated first. */
+    private static final Comparator<CityPopulation> ORDER = Comparator
+        .comparingInt(CityPopulation::getPopulation).reversed()
+        .thenComparing(CityPopulation::getKey);
+
+    /** Cities by population. */
+    private final ConcurrentSkipListSet<CityPopulation> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+    /** Cities by key, guarded by the view. */
+    private final Map<CityKey, CityPopulation> cities = new HashMap<>();
+
+    /** Changes received while the cities are loaded, {@code null} once the load is complete. */
+    private List<CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject>> buffered = new ArrayList<>();
+
+    /** Cursor of the continuous query. */
+    private final QueryCursor<Cache.Entry<BinaryObject, BinaryObject>> cursor;
+
+    /** Number of the loaded cities. */
+    private final int loaded;
+
+    /** Number of the changes buffered during the load. */
+    private final int bufferedChanges;
+
+    /** Number of the changes applied after the load. */
+    private long liveChanges;
+
+    /**
+     * Subscribes for the changes of the cities and loads the cities.
+     *
+     * @param ignite Ignite instance.
+     * @param pageSize Number of the cities loaded at once.
+     */
+    public TopCitiesView(Ignite ignite, int pageSize) {
+        ScanQuery<BinaryObject, BinaryObject> initialQuery = new ScanQuery<>();
+
+        initialQuery.setPageSize(pageSize);
+
+        ContinuousQuery<BinaryObject, BinaryObject> query = new ContinuousQuery<>();
+
+        query.setInitialQuery(initialQuery);
+        query.setRemoteFilterFactory(new CityChangesFilterFactory());
+        query.setLocalListener(events -> {
+            synchronized (this) {
+                for (CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e : events) {
+                    if (buffered != null)
+                        buffered.add(e);
+                    else {
+                        apply(e);
+
+                        liveChanges++;
+                    }
+                }
+            }
+        });
+
+        cursor = ignite.cache("City").withKeepBinary().query(query);
+
+        int cnt = 0;
+
+        // Locking per city rather than for the whole load, so the listener isn't blocked while the pages arrive.
+        for (Cache.Entry<BinaryObject, BinaryObject> entry : cursor) {
+            CityPopulation city = city(entry.getKey(), entry.getValue());
+
+            synchronized (this) {
+                // A buffered change is applied after the load and overrides the loaded city.
+                put(city);
+            }
+
+            cnt++;
+        }
+
+        loaded = cnt;
+
+        synchronized (this) {
+            bufferedChanges = buffered.size();
+
+            for (CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e : buffered)
+                apply(e);
+
+            buffered = null;
+        }
+    }
+
+    /**
+     * @param n Number of the cities.
+     * @return Most populated cities, the most populated first.
+     */
+    public List<CityPopulation> top(int n) {
+        List<CityPopulation> res = new ArrayList<>(n);
+
+        for (Iterator<CityPopulation> it = ranking.iterator(); it.hasNext() && res.size() < n; )
+            res.add(it.next());
+
+        return res;
+    }
+
+    /**
+     * @return Number of the cities in the view.
+     */
+    public int size() {
+        return ranking.size();
+    }
+
+    /**
+     * @return Number of the cities loaded by the initial query.
+     */
+    public int loaded() {
+        return loaded;
+    }
+
+    /**
+     * @return Number of the changes received while the cities have been loaded.
+     */
+    public int bufferedChanges() {
+        return bufferedChanges;
+    }
+
+    /**
+     * @return Number of the changes applied after the load.
+     */
+    public synchronized long liveChanges() {
+        return liveChanges;
+    }
+
+    /**
+     * Stops following the changes of the cities.
+     */
+    @Override public void close() {
+        cursor.close();
+    }
+
+    @Override public String toString() {
+        return "TopCitiesView [size=" + size() + ", loaded=" + loaded + ", bufferedChanges=" + bufferedChanges +
+            ", liveChanges=" + liveChanges() + ']';
+    }
+
+    /**
+     * Applies a change of a city.
+     */
+    private void apply(CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e) {
+        if (e.getEventType() == EventType.REMOVED || e.getEventType() == EventType.EXPIRED) {
+            CityPopulation prev = cities.remove(e.getKey().<CityKey>deserialize());
+
+            if (prev != null)
+                ranking.remove(prev);
+        }
+        else
+            put(city(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * Adds a city or replaces its previous state.
+     */
+    private void put(CityPopulation city) {
+        CityPopulation prev = cities.put(city.getKey(), city);
+
+        if (prev != null)
+            ranking.remove(prev);
+
+        ranking.add(city);
+    }
+
+    /** */
+    private static CityPopulation city(BinaryObject key, BinaryObject city) {
+        return new CityPopulation(key.deserialize(), BinaryFields.value(city, "name"),
+            BinaryFields.<Number>value(city, "population").intValue());
+    }
+
+    /**
+     * Name and population of a city.
+     */
+    public static class CityPopulation {
+        /** */
+        private final CityKey key;
+
+        /** */
+        private final String name;
+
+        /** */
+        private final int population;
+
+        /** */
+        CityPopulation(CityKey key, String name, int population) {
+            this.key = key;
+            this.name = name;
+            this.population = population;
+        }
+
+        public CityKey getKey() {
+            return key;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getPopulation() {
+            return population;
+        }
+
+        @Override public String toString() {
+            return "CityPopulation{" +
+                "key=" + key +
+                ", name='" + name + '\'' +
+                ", population=" + population +
+                '}';
+        }
+    }
+
+    /**
+     * Creates the filters that send only the changes that matter to the view.
+     */
+    private static class CityChangesFilterFactory
+        implements Factory<CacheEntryEventFilter<BinaryObject, BinaryObject>> {
+        /** {@inheritDoc} */
+        @Override public CacheEntryEventFilter<BinaryObject, BinaryObject> create() {
+            return new CityChangesFilter();
+        }
+    }
+
+    /**
+     * Passes the new and removed cities and the changes of the population or the name.
+     */
+    private static class CityChangesFilter implements CacheEntryEventFilter<BinaryObject, BinaryObject> {
+        /** {@inheritDoc} */
+        @Override public boolean evaluate(CacheEntryEvent<? extends BinaryObject, ? extends BinaryObject> e) {
+            if (e.getEventType() != EventType.UPDATED || e.getOldValue() == null)
+                return true;
+
+            return !BinaryFields.value(e.getOldValue(), "population").equals(
+                BinaryFields.value(e.getValue(), "population")) ||
+                !BinaryFields.value(e.getOldValue(), "name").equals(BinaryFields.value(e.getValue(), "name"));
+        }
+    }
+}